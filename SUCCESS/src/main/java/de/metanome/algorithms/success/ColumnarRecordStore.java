@@ -0,0 +1,123 @@
+package de.metanome.algorithms.success;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.algorithm_helper.data_structures.PositionListIndex;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+public class ColumnarRecordStore {
+
+	// Reserved value id for NULL values; since NULL != NULL, it never equals any other id
+	public static final int NULL_ID = -1;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final int[][] columns;
+	private final List<List<String>> dictionaries;
+	private final int numberOfRows;
+
+	private ColumnarRecordStore(int[][] columns, List<List<String>> dictionaries, int numberOfRows) {
+		this.columns = columns;
+		this.dictionaries = dictionaries;
+		this.numberOfRows = numberOfRows;
+	}
+
+	public static ColumnarRecordStore read(RelationalInput input) throws InputIterationException {
+		int numberOfColumns = input.numberOfColumns();
+		int[][] columns = new int[numberOfColumns][INITIAL_CAPACITY];
+		List<Map<String, Integer>> valueIds = new ArrayList<>(numberOfColumns);
+		List<List<String>> dictionaries = new ArrayList<>(numberOfColumns);
+		for (int i = 0; i < numberOfColumns; i++) {
+			valueIds.add(new HashMap<>());
+			dictionaries.add(new ArrayList<>());
+		}
+
+		// Encode each value by the id of its first occurrence in the column (single pass over the input)
+		int numberOfRows = 0;
+		while (input.hasNext()) {
+			List<String> row = input.next();
+			if (numberOfColumns > 0 && numberOfRows == columns[0].length) {
+				for (int i = 0; i < numberOfColumns; i++) {
+					columns[i] = Arrays.copyOf(columns[i], 2 * numberOfRows);
+				}
+			}
+
+			for (int i = 0; i < numberOfColumns; i++) {
+				String value = row.get(i);
+				if (value == null) {
+					columns[i][numberOfRows] = NULL_ID;
+					continue;
+				}
+
+				List<String> dictionary = dictionaries.get(i);
+				Integer valueId = valueIds.get(i).putIfAbsent(value, dictionary.size());
+				if (valueId == null) {
+					valueId = dictionary.size();
+					dictionary.add(value);
+				}
+				columns[i][numberOfRows] = valueId;
+			}
+			numberOfRows++;
+		}
+
+		for (int i = 0; i < numberOfColumns; i++) {
+			columns[i] = Arrays.copyOf(columns[i], numberOfRows);
+		}
+		return new ColumnarRecordStore(columns, dictionaries, numberOfRows);
+	}
+
+	public int getNumberOfRows() {
+		return this.numberOfRows;
+	}
+
+	public int getNumberOfColumns() {
+		return this.columns.length;
+	}
+
+	public int[] getColumn(int columnIndex) {
+		return this.columns[columnIndex];
+	}
+
+	public int getDictionarySize(int columnIndex) {
+		return this.dictionaries.get(columnIndex).size();
+	}
+
+	public String getValue(int rowIndex, int columnIndex) {
+		int valueId = this.columns[columnIndex][rowIndex];
+		return valueId == NULL_ID ? null : this.dictionaries.get(columnIndex).get(valueId);
+	}
+
+	public List<PositionListIndex> createSingletonPlis() {
+		List<PositionListIndex> plis = new ArrayList<>(this.columns.length);
+		for (int columnIndex = 0; columnIndex < this.columns.length; columnIndex++) {
+			int[] column = this.columns[columnIndex];
+			LongArrayList[] clusters = new LongArrayList[this.getDictionarySize(columnIndex)];
+			for (int rowIndex = 0; rowIndex < this.numberOfRows; rowIndex++) {
+				int valueId = column[rowIndex];
+				if (valueId == NULL_ID) {
+					continue;
+				}
+				if (clusters[valueId] == null) {
+					clusters[valueId] = new LongArrayList();
+				}
+				clusters[valueId].add(rowIndex);
+			}
+
+			// Strip clusters of size one, they cannot violate uniqueness
+			List<LongArrayList> strippedClusters = new ArrayList<>();
+			for (LongArrayList cluster : clusters) {
+				if (cluster.size() > 1) {
+					strippedClusters.add(cluster);
+				}
+			}
+			plis.add(new PositionListIndex(strippedClusters, this.numberOfRows));
+		}
+		return plis;
+	}
+}
@@ -0,0 +1,165 @@
+package de.metanome.algorithms.success;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import de.metanome.algorithm_helper.data_structures.ColumnCombinationBitset;
+import de.metanome.algorithm_helper.data_structures.PositionListIndex;
+import de.metanome.algorithm_integration.AlgorithmExecutionException;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+// Alternates between sampling non-UCCs from record pairs and validating the remaining candidates, see HyUCC
+public class HybridUccDiscovery {
+
+	private static final double EFFICIENCY_THRESHOLD = 0.01;
+
+	private final ColumnarRecordStore records;
+	private final UniquenessChecker uniquenessChecker;
+	private final Set<ColumnCombinationBitset> nonUccs;
+	private final UccPrefixTree positiveCover;
+	private final UccPrefixTree results;
+
+	private int window = 1;
+	private int level = 0;
+
+	public HybridUccDiscovery(ColumnarRecordStore records, UniquenessChecker uniquenessChecker) {
+		this.records = records;
+		this.uniquenessChecker = uniquenessChecker;
+		this.nonUccs = new HashSet<>();
+		this.positiveCover = new UccPrefixTree(records.getNumberOfColumns());
+		this.results = new UccPrefixTree(records.getNumberOfColumns());
+
+		// Without any knowledge, every single column is a candidate
+		for (int columnIndex = 0; columnIndex < records.getNumberOfColumns(); columnIndex++) {
+			this.positiveCover.add(new ColumnCombinationBitset(columnIndex));
+		}
+	}
+
+	// Returns the minimal UCCs of the next level, or null if there are no candidates left
+	public List<ColumnCombinationBitset> validateNextLevel(ForkJoinPool pool) throws AlgorithmExecutionException {
+		if (this.level == 0) {
+			this.sample();
+		}
+		this.level++;
+		if (this.level > this.positiveCover.getMaxSize()) {
+			return null;
+		}
+
+		// Specializations of invalid candidates are larger, so they only end up in later levels
+		this.uniquenessChecker.startLevel(this.level);
+		List<ColumnCombinationBitset> candidates = this.positiveCover.getCombinations(this.level);
+		int[][] duplicates = pool == null ? null : this.findDuplicates(candidates, pool);
+		List<ColumnCombinationBitset> validUccs = new ArrayList<>();
+		int numberOfInvalidCandidates = 0;
+		for (int i = 0; i < candidates.size(); i++) {
+			// Skip candidates that a non-UCC of this level has specialized already
+			ColumnCombinationBitset candidate = candidates.get(i);
+			if (!this.positiveCover.contains(candidate)) {
+				continue;
+			}
+
+			int[] duplicate = duplicates == null ? this.uniquenessChecker.findDuplicate(candidate) : duplicates[i];
+			if (duplicate == null) {
+				validUccs.add(candidate);
+			} else {
+				numberOfInvalidCandidates++;
+				ColumnCombinationBitset nonUcc = this.getAgreeSet(duplicate[0], duplicate[1]);
+				this.nonUccs.add(nonUcc);
+				this.specialize(nonUcc);
+			}
+		}
+
+		// Too many invalid candidates, so the sample was not representative
+		if (numberOfInvalidCandidates > EFFICIENCY_THRESHOLD * (validUccs.size() + numberOfInvalidCandidates)) {
+			this.sample();
+		}
+
+		// The positive cover may contain supersets of UCCs found before
+		List<ColumnCombinationBitset> minimalUccs = new ArrayList<>();
+		for (ColumnCombinationBitset ucc : validUccs) {
+			if (!this.results.containsSubsetOf(ucc)) {
+				minimalUccs.add(ucc);
+			}
+		}
+		minimalUccs.forEach(this.results::add);
+		return minimalUccs;
+	}
+
+	private int[][] findDuplicates(List<ColumnCombinationBitset> candidates, ForkJoinPool pool) throws AlgorithmExecutionException {
+		// The candidates are validated concurrently, but the positive cover is only updated afterwards in candidate order
+		int[][] duplicates = new int[candidates.size()][];
+		try {
+			pool.submit(() -> IntStream.range(0, candidates.size())
+					.parallel()
+					.forEach(i -> duplicates[i] = this.uniquenessChecker.findDuplicate(candidates.get(i))))
+				.get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new AlgorithmExecutionException("Parallel uniqueness check failed", e);
+		}
+		return duplicates;
+	}
+
+	private void sample() {
+		// Compare records of the same cluster with an increasing window, as long as it reveals new non-UCCs
+		double efficiency;
+		do {
+			long numberOfComparisons = 0;
+			long numberOfNewNonUccs = 0;
+			for (PositionListIndex pli : this.uniquenessChecker.getSingletonPlis()) {
+				for (LongArrayList cluster : pli.getClusters()) {
+					for (int i = 0; i + this.window < cluster.size(); i++) {
+						numberOfComparisons++;
+						int firstRowIndex = (int) cluster.getLong(i);
+						int secondRowIndex = (int) cluster.getLong(i + this.window);
+						if (this.addNonUcc(this.getAgreeSet(firstRowIndex, secondRowIndex))) {
+							numberOfNewNonUccs++;
+						}
+					}
+				}
+			}
+			this.window++;
+			efficiency = numberOfComparisons == 0 ? 0 : (double) numberOfNewNonUccs / numberOfComparisons;
+		} while (efficiency >= EFFICIENCY_THRESHOLD);
+	}
+
+	private ColumnCombinationBitset getAgreeSet(int firstRowIndex, int secondRowIndex) {
+		// NULL != NULL
+		List<Integer> columnIndices = new ArrayList<>();
+		for (int columnIndex = 0; columnIndex < this.records.getNumberOfColumns(); columnIndex++) {
+			int[] column = this.records.getColumn(columnIndex);
+			if (column[firstRowIndex] != ColumnarRecordStore.NULL_ID && column[firstRowIndex] == column[secondRowIndex]) {
+				columnIndices.add(columnIndex);
+			}
+		}
+		return new ColumnCombinationBitset(columnIndices);
+	}
+
+	private boolean addNonUcc(ColumnCombinationBitset nonUcc) {
+		if (!this.nonUccs.add(nonUcc)) {
+			return false;
+		}
+		this.specialize(nonUcc);
+		return true;
+	}
+
+	private void specialize(ColumnCombinationBitset nonUcc) {
+		// Replace every candidate within the non-UCC by its extensions with one column outside of it
+		for (ColumnCombinationBitset invalidCandidate : this.positiveCover.getSubsetsOf(nonUcc)) {
+			this.positiveCover.remove(invalidCandidate);
+			for (int columnIndex = 0; columnIndex < this.records.getNumberOfColumns(); columnIndex++) {
+				if (nonUcc.containsColumn(columnIndex)) {
+					continue;
+				}
+				ColumnCombinationBitset specialization = invalidCandidate.union(new ColumnCombinationBitset(columnIndex));
+				if (!this.positiveCover.containsSubsetOf(specialization)) {
+					this.positiveCover.add(specialization);
+				}
+			}
+		}
+	}
+}
@@ -10,6 +10,9 @@ import de.metanome.algorithm_integration.algorithm_types.UniqueColumnCombination
 import de.metanome.algorithm_integration.algorithm_types.RelationalInputParameterAlgorithm;
 import de.metanome.algorithm_integration.algorithm_types.StringParameterAlgorithm;
 import de.metanome.algorithm_integration.configuration.ConfigurationRequirement;
+import de.metanome.algorithm_integration.configuration.ConfigurationRequirementBoolean;
+import de.metanome.algorithm_integration.configuration.ConfigurationRequirementInteger;
+import de.metanome.algorithm_integration.configuration.ConfigurationRequirementString;
 import de.metanome.algorithm_integration.configuration.ConfigurationRequirementRelationalInput;
 import de.metanome.algorithm_integration.input.RelationalInputGenerator;
 import de.metanome.algorithm_integration.result_receiver.UniqueColumnCombinationResultReceiver;
@@ -20,7 +23,7 @@ public class SUCCESS extends SUCCESSAlgorithm 				// Separating the algorithm im
 						  			 StringParameterAlgorithm, IntegerParameterAlgorithm, BooleanParameterAlgorithm {	// Types of configuration parameters this algorithm requires; all these are optional
 
 	public enum Identifier {
-		INPUT_GENERATOR
+		INPUT_GENERATOR, NUMBER_OF_THREADS, SAMPLE_SIZE, PRINT_RESULTS, STRATEGY
 	};
 
 	@Override
@@ -38,22 +41,58 @@ public class SUCCESS extends SUCCESSAlgorithm 				// Separating the algorithm im
 		ArrayList<ConfigurationRequirement<?>> conf = new ArrayList<>();
 		conf.add(new ConfigurationRequirementRelationalInput(SUCCESS.Identifier.INPUT_GENERATOR.name()));
 		
+		ConfigurationRequirementInteger numberOfThreads = new ConfigurationRequirementInteger(SUCCESS.Identifier.NUMBER_OF_THREADS.name());
+		numberOfThreads.setDefaultValues(new Integer[] { this.numberOfThreads });
+		numberOfThreads.setRequired(true);
+		conf.add(numberOfThreads);
+		
+		ConfigurationRequirementInteger sampleSize = new ConfigurationRequirementInteger(SUCCESS.Identifier.SAMPLE_SIZE.name());
+		sampleSize.setDefaultValues(new Integer[] { this.sampleSize });
+		sampleSize.setRequired(true);
+		conf.add(sampleSize);
+		
+		ConfigurationRequirementBoolean printResults = new ConfigurationRequirementBoolean(SUCCESS.Identifier.PRINT_RESULTS.name());
+		printResults.setDefaultValues(new Boolean[] { this.printResults });
+		printResults.setRequired(true);
+		conf.add(printResults);
+		
+		ConfigurationRequirementString strategy = new ConfigurationRequirementString(SUCCESS.Identifier.STRATEGY.name());
+		strategy.setDefaultValues(new String[] { this.strategy.name() });
+		strategy.setRequired(true);
+		conf.add(strategy);
+		
 		return conf;
 	}
 
 	@Override
 	public void setStringConfigurationValue(String identifier, String... values) throws AlgorithmConfigurationException {
-		this.handleUnknownConfiguration(identifier, values);
+		if (!SUCCESS.Identifier.STRATEGY.name().equals(identifier))
+			this.handleUnknownConfiguration(identifier, values);
+		try {
+			this.strategy = Strategy.valueOf(values[0].trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new AlgorithmConfigurationException("Unknown strategy: " + values[0] + " (expected one of " + concat(Strategy.values(), ",") + ")");
+		}
 	}
 
 	@Override
 	public void setIntegerConfigurationValue(String identifier, Integer... values) throws AlgorithmConfigurationException {
-		this.handleUnknownConfiguration(identifier, values);
+		if (SUCCESS.Identifier.NUMBER_OF_THREADS.name().equals(identifier)) {
+			if (values[0] < 1)
+				throw new AlgorithmConfigurationException("The number of threads must be positive: " + values[0]);
+			this.numberOfThreads = values[0];
+		} else if (SUCCESS.Identifier.SAMPLE_SIZE.name().equals(identifier)) {
+			this.sampleSize = values[0];
+		} else {
+			this.handleUnknownConfiguration(identifier, values);
+		}
 	}
 
 	@Override
 	public void setBooleanConfigurationValue(String identifier, Boolean... values) throws AlgorithmConfigurationException {
-		this.handleUnknownConfiguration(identifier, values);
+		if (!SUCCESS.Identifier.PRINT_RESULTS.name().equals(identifier))
+			this.handleUnknownConfiguration(identifier, values);
+		this.printResults = values[0];
 	}
 
 	@Override
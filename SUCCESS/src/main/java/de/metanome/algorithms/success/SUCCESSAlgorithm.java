@@ -1,18 +1,16 @@
 package de.metanome.algorithms.success;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import de.metanome.algorithm_integration.AlgorithmConfigurationException;
 import de.metanome.algorithm_integration.AlgorithmExecutionException;
-import de.metanome.algorithm_integration.ColumnCombination;
-import de.metanome.algorithm_integration.ColumnIdentifier;
 import de.metanome.algorithm_integration.input.InputGenerationException;
 import de.metanome.algorithm_integration.input.InputIterationException;
 import de.metanome.algorithm_integration.input.RelationalInput;
@@ -21,22 +19,36 @@ import de.metanome.algorithm_integration.result_receiver.ColumnNameMismatchExcep
 import de.metanome.algorithm_integration.result_receiver.CouldNotReceiveResultException;
 import de.metanome.algorithm_integration.result_receiver.UniqueColumnCombinationResultReceiver;
 import de.metanome.algorithm_integration.results.UniqueColumnCombination;
+import de.metanome.algorithm_helper.data_structures.ColumnCombinationBitset;
 
 public class SUCCESSAlgorithm {
 	
+	public enum Strategy {
+		LATTICE, HYBRID
+	};
+	
 	protected RelationalInputGenerator inputGenerator = null;
 	protected UniqueColumnCombinationResultReceiver resultReceiver = null;
 	
 	protected String relationName;
 	protected List<String> columnNames;
 	
+	protected int numberOfThreads = 1;
+	protected int sampleSize = 1000;
+	protected boolean printResults = false;
+	protected Strategy strategy = Strategy.LATTICE;
+	
+	// Kept after the execution, so that its statistics can be inspected
+	protected UniquenessChecker uniquenessChecker = null;
+	
 	public void execute() throws AlgorithmExecutionException {
 		
 		this.initialize();
-		List<List<String>> records = this.readInput();
-		List<UniqueColumnCombination> results = this.generateResults(records);
-		System.out.println(results);
-		this.emit(results);		
+		ColumnarRecordStore records = this.readInput();
+		if (this.strategy == Strategy.HYBRID)
+			this.generateResultsHybrid(records);
+		else
+			this.generateResults(records);
 	}
 	
 	protected void initialize() throws InputGenerationException, AlgorithmConfigurationException {
@@ -45,15 +57,12 @@ public class SUCCESSAlgorithm {
 		this.columnNames = input.columnNames();
 	}
 	
-	protected List<List<String>> readInput() throws InputGenerationException, AlgorithmConfigurationException, InputIterationException {
-		List<List<String>> records = new ArrayList<>();
+	protected ColumnarRecordStore readInput() throws InputGenerationException, AlgorithmConfigurationException, InputIterationException {
 		RelationalInput input = this.inputGenerator.generateNewCopy();
-		while (input.hasNext())
-			records.add(input.next());
-		return records;
+		return ColumnarRecordStore.read(input);
 	}
 	
-	protected void print(List<List<String>> records) {		
+	protected void print(ColumnarRecordStore records) {		
 		// Print schema
 		System.out.print(this.relationName + "( ");
 		for (String columnName : this.columnNames)
@@ -61,103 +70,131 @@ public class SUCCESSAlgorithm {
 		System.out.println(")");
 		
 		// Print records
-		for (List<String> record : records) {
+		for (int rowIndex = 0; rowIndex < records.getNumberOfRows(); rowIndex++) {
 			System.out.print("| ");
-			for (String value : record)
-				System.out.print(value + " | ");
+			for (int columnIndex = 0; columnIndex < records.getNumberOfColumns(); columnIndex++)
+				System.out.print(records.getValue(rowIndex, columnIndex) + " | ");
 			System.out.println();
 		}
 	}
 	
-	protected List<UniqueColumnCombination> generateResults(List<List<String>> records) {
-		List<List<Integer>> results = new ArrayList<>();
+	protected void generateResults(ColumnarRecordStore records) throws AlgorithmExecutionException {
+		this.uniquenessChecker = new UniquenessChecker(records, this.sampleSize);
+		ForkJoinPool pool = this.numberOfThreads > 1 ? new ForkJoinPool(this.numberOfThreads) : null;
 		
-		// Initialize our working queue with the column names (first layer of the lattice)
-		ArrayDeque<List<Integer>> combinationQueue = new ArrayDeque<>(
-				IntStream.range(0, this.columnNames.size())
-				.boxed()
-				.map(Arrays::asList)
-				.collect(Collectors.toList()));
+		// Initialize the first level of the lattice with the single columns
+		List<ColumnCombinationBitset> currentLevel = IntStream.range(0, this.columnNames.size())
+				.mapToObj(ColumnCombinationBitset::new)
+				.collect(Collectors.toList());
 		
-		// Iterate over column combinations in the working queue
-		while(combinationQueue.size() > 0) {
-			List<Integer> columnCombination = combinationQueue.pop();
-			
-			// Discard in case of superset of result
-			if (results.stream().anyMatch(columnCombination::containsAll)) {
-				continue;
+		// Traverse the lattice level by level
+		try {
+			for (int level = 1; !currentLevel.isEmpty(); level++) {
+				this.uniquenessChecker.startLevel(level);
+				boolean[] isUnique = this.checkUniqueness(currentLevel, this.uniquenessChecker, pool);
+				
+				// If a combination is unique, we add it to the result.
+				// From here, we don't need to generate posterior nodes of the lattice because we want to have the minimal UCCs.
+				// Merging in candidate order keeps the result identical to a sequential run.
+				List<ColumnCombinationBitset> results = new ArrayList<>();
+				List<ColumnCombinationBitset> nonUniques = new ArrayList<>();
+				for (int i = 0; i < currentLevel.size(); i++) {
+					ColumnCombinationBitset columnCombination = currentLevel.get(i);
+					if (isUnique[i]) {
+						results.add(columnCombination);
+					} else {
+						nonUniques.add(columnCombination);
+					}
+				}
+				
+				// All subsets of this level's UCCs have been checked in prior levels, so they are guaranteed to be minimal
+				this.emit(results);
+				
+				// Only the non-unique combinations are extended to the next level
+				currentLevel = this.generateNextLevel(nonUniques);
 			}
-			
-			// If the current combination is unique, we add it to the result.
-			// From here, we don't need to generate posterior nodes of the lattice because we want to have the minimal UCCs.
-			if (this.isUnique(columnCombination, records)) {
-				results.add(columnCombination);
-			
-			// The current combination is not unique, so we generate the posterior nodes of the lattice and add them to the working queue.
-			} else {
-				generatePostCombinations(columnCombination).stream()
-					.forEach(combinationQueue::add);
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
 			}
 		}
-		
-		// Convert list of sets of column names to unique column combinations
-		return results.stream()
-			.map(columnCombination -> {
-				ColumnIdentifier[] columnIdentifiers = columnCombination
-						.stream()
-						.map(columnIndex -> new ColumnIdentifier(this.relationName, this.columnNames.get(columnIndex)))
-						.toArray(ColumnIdentifier[]::new);
-				UniqueColumnCombination ucc = new UniqueColumnCombination(new ColumnCombination(columnIdentifiers));
-				return ucc;
-			})
-			.collect(Collectors.toList());
+
 	}
 	
-	private boolean isUnique(List<Integer> columnIndices, List<List<String>> records) {		
-		// Put the regarding lines of our records together in one string.
-		// Filter for rows containing NULL values and ignore them since NULL != NULL.
-		List<String> projectedRecords = records.stream()
-				.map(row -> this.projectRow(row, columnIndices))
-				.filter(row -> !row.contains(null))
-				.map(row -> row.stream().collect(Collectors.joining("|")))
-				.collect(Collectors.toList());
-		
-		// Store the rows in a hash set. If two values collide, break.
-		Set<String> uniqueRows = new HashSet<>(projectedRecords.size());
-		for (String row : projectedRecords) {
-			if (!uniqueRows.add(row)) {
-				return false;
+	protected void generateResultsHybrid(ColumnarRecordStore records) throws AlgorithmExecutionException {
+		// Alternate between sampling record pairs and validating the induced candidates level by level.
+		// Each level's UCCs are minimal, so they can be emitted right away as in the lattice traversal.
+		this.uniquenessChecker = new UniquenessChecker(records, this.sampleSize);
+		HybridUccDiscovery discovery = new HybridUccDiscovery(records, this.uniquenessChecker);
+		ForkJoinPool pool = this.numberOfThreads > 1 ? new ForkJoinPool(this.numberOfThreads) : null;
+		try {
+			List<ColumnCombinationBitset> results;
+			while ((results = discovery.validateNextLevel(pool)) != null) {
+				this.emit(results);
+			}
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
 			}
 		}
-		
-		return true;
 	}
 	
-	private List<String> projectRow(List<String> row, List<Integer> columnIndices) {
-		return columnIndices
-			.stream()
-			.map(row::get)
-			.collect(Collectors.toList());
+	private boolean[] checkUniqueness(List<ColumnCombinationBitset> candidates, UniquenessChecker uniquenessChecker, ForkJoinPool pool) throws AlgorithmExecutionException {
+		boolean[] isUnique = new boolean[candidates.size()];
+		if (pool == null) {
+			for (int i = 0; i < candidates.size(); i++) {
+				isUnique[i] = uniquenessChecker.isUnique(candidates.get(i));
+			}
+			return isUnique;
+		}
+		
+		// Candidates of the same level are independent of each other, so they can be checked concurrently
+		try {
+			pool.submit(() -> IntStream.range(0, candidates.size())
+					.parallel()
+					.forEach(i -> isUnique[i] = uniquenessChecker.isUnique(candidates.get(i))))
+				.get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new AlgorithmExecutionException("Parallel uniqueness check failed", e);
+		}
+		return isUnique;
 	}
 	
-	private List<List<Integer>> generatePostCombinations(List<Integer> priorColumnIndices) {
-		// Generate new column combinations from given node.
-		// Combinations already in the result are handled directly in generateResult().
-		int maxColumnIndex = priorColumnIndices.get(priorColumnIndices.size() - 1);
-		
-		return IntStream.range(maxColumnIndex + 1, this.columnNames.size())
-			.boxed()
-			.map(columnIndex -> {
-				List<Integer> newColumnIndices = new ArrayList<>(priorColumnIndices);
-				newColumnIndices.add(columnIndex);
-				return newColumnIndices;
-			})
-			.collect(Collectors.toList());
+	private List<ColumnCombinationBitset> generateNextLevel(List<ColumnCombinationBitset> nonUniques) {
+		// Apriori-gen: join two non-unique combinations of the same level that only differ in their last column.
+		// Since the combinations of a level are generated in lexicographical order, combinations sharing a prefix are adjacent.
+		Set<ColumnCombinationBitset> nonUniqueSet = new HashSet<>(nonUniques);
+		List<ColumnCombinationBitset> nextLevel = new ArrayList<>();
+		for (int i = 0; i < nonUniques.size(); i++) {
+			ColumnCombinationBitset first = nonUniques.get(i);
+			List<Integer> firstColumns = first.getSetBits();
+			
+			for (int j = i + 1; j < nonUniques.size(); j++) {
+				ColumnCombinationBitset second = nonUniques.get(j);
+				List<Integer> secondColumns = second.getSetBits();
+				if (!firstColumns.subList(0, firstColumns.size() - 1).equals(secondColumns.subList(0, secondColumns.size() - 1))) {
+					break;
+				}
+				
+				// All direct subsets of the candidate must be non-unique, otherwise one of them is or contains an UCC.
+				// This also discards every superset of a result, so the candidate is minimal if it is unique.
+				ColumnCombinationBitset candidate = first.union(second);
+				if (nonUniqueSet.containsAll(candidate.getDirectSubsets())) {
+					nextLevel.add(candidate);
+				}
+			}
+		}
+		return nextLevel;
 	}
 	
-	protected void emit(List<UniqueColumnCombination> results) throws CouldNotReceiveResultException, ColumnNameMismatchException {
-		for (UniqueColumnCombination ucc : results)
+	protected void emit(List<ColumnCombinationBitset> results) throws CouldNotReceiveResultException, ColumnNameMismatchException {
+		for (ColumnCombinationBitset columnCombination : results) {
+			UniqueColumnCombination ucc = new UniqueColumnCombination(
+					columnCombination.createColumnCombination(this.relationName, this.columnNames));
+			if (this.printResults)
+				System.out.println(ucc);
 			this.resultReceiver.receiveResult(ucc);
+		}
 	}
 	
 	@Override
@@ -0,0 +1,163 @@
+package de.metanome.algorithms.success;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.metanome.algorithm_helper.data_structures.ColumnCombinationBitset;
+
+public class UccPrefixTree {
+
+	private final int numberOfColumns;
+	private final Node root = new Node();
+
+	public UccPrefixTree(int numberOfColumns) {
+		this.numberOfColumns = numberOfColumns;
+	}
+
+	public void add(ColumnCombinationBitset ucc) {
+		// Each path from the root spells the column indices of an UCC in ascending order
+		Node node = this.root;
+		for (int columnIndex : ucc.getSetBits()) {
+			if (node.children == null) {
+				node.children = new Node[this.numberOfColumns];
+			}
+			if (node.children[columnIndex] == null) {
+				node.children[columnIndex] = new Node();
+			}
+			node = node.children[columnIndex];
+		}
+		node.isUcc = true;
+	}
+
+	public void remove(ColumnCombinationBitset ucc) {
+		this.remove(this.root, ucc.getSetBits(), 0);
+	}
+
+	private boolean remove(Node node, List<Integer> columnIndices, int depth) {
+		// Returns whether the node became obsolete and can be dropped by its parent
+		if (depth == columnIndices.size()) {
+			node.isUcc = false;
+		} else if (node.children != null) {
+			int columnIndex = columnIndices.get(depth);
+			Node child = node.children[columnIndex];
+			if (child != null && this.remove(child, columnIndices, depth + 1)) {
+				node.children[columnIndex] = null;
+			}
+		}
+		return !node.isUcc && !this.hasChildren(node);
+	}
+
+	private boolean hasChildren(Node node) {
+		if (node.children != null) {
+			for (Node child : node.children) {
+				if (child != null) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	public boolean contains(ColumnCombinationBitset columnCombination) {
+		Node node = this.root;
+		for (int columnIndex : columnCombination.getSetBits()) {
+			if (node.children == null || node.children[columnIndex] == null) {
+				return false;
+			}
+			node = node.children[columnIndex];
+		}
+		return node.isUcc;
+	}
+
+	public boolean containsSubsetOf(ColumnCombinationBitset columnCombination) {
+		// Only descend into branches of columns that are part of the combination,
+		// so the lookup does not depend on the total number of UCCs.
+		return this.containsSubsetOf(this.root, columnCombination.getSetBits(), 0);
+	}
+
+	private boolean containsSubsetOf(Node node, List<Integer> columnIndices, int from) {
+		if (node.isUcc) {
+			return true;
+		}
+		if (node.children == null) {
+			return false;
+		}
+		for (int i = from; i < columnIndices.size(); i++) {
+			Node child = node.children[columnIndices.get(i)];
+			if (child != null && this.containsSubsetOf(child, columnIndices, i + 1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public List<ColumnCombinationBitset> getSubsetsOf(ColumnCombinationBitset columnCombination) {
+		List<ColumnCombinationBitset> subsets = new ArrayList<>();
+		this.collectSubsetsOf(this.root, columnCombination.getSetBits(), 0, new ArrayList<>(), subsets);
+		return subsets;
+	}
+
+	private void collectSubsetsOf(Node node, List<Integer> columnIndices, int from, List<Integer> path, List<ColumnCombinationBitset> subsets) {
+		if (node.isUcc) {
+			subsets.add(new ColumnCombinationBitset(path));
+		}
+		if (node.children == null) {
+			return;
+		}
+		for (int i = from; i < columnIndices.size(); i++) {
+			Node child = node.children[columnIndices.get(i)];
+			if (child != null) {
+				path.add(columnIndices.get(i));
+				this.collectSubsetsOf(child, columnIndices, i + 1, path, subsets);
+				path.remove(path.size() - 1);
+			}
+		}
+	}
+
+	public List<ColumnCombinationBitset> getCombinations(int size) {
+		// Collects the combinations of the given size in lexicographical order
+		List<ColumnCombinationBitset> combinations = new ArrayList<>();
+		this.collectCombinations(this.root, size, new ArrayList<>(), combinations);
+		return combinations;
+	}
+
+	private void collectCombinations(Node node, int size, List<Integer> path, List<ColumnCombinationBitset> combinations) {
+		if (path.size() == size) {
+			if (node.isUcc) {
+				combinations.add(new ColumnCombinationBitset(path));
+			}
+			return;
+		}
+		if (node.children == null) {
+			return;
+		}
+		for (int columnIndex = 0; columnIndex < node.children.length; columnIndex++) {
+			if (node.children[columnIndex] != null) {
+				path.add(columnIndex);
+				this.collectCombinations(node.children[columnIndex], size, path, combinations);
+				path.remove(path.size() - 1);
+			}
+		}
+	}
+
+	public int getMaxSize() {
+		return this.getMaxDepth(this.root);
+	}
+
+	private int getMaxDepth(Node node) {
+		int maxDepth = 0;
+		if (node.children != null) {
+			for (Node child : node.children) {
+				if (child != null) {
+					maxDepth = Math.max(maxDepth, this.getMaxDepth(child) + 1);
+				}
+			}
+		}
+		return maxDepth;
+	}
+
+	private static class Node {
+		Node[] children;
+		boolean isUcc;
+	}
+}
@@ -0,0 +1,281 @@
+package de.metanome.algorithms.success;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.metanome.algorithm_helper.data_structures.ColumnCombinationBitset;
+import de.metanome.algorithm_helper.data_structures.PositionListIndex;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+public class UniquenessChecker {
+
+	// Scratch space of the probing and refinement, reused by all checks of a thread
+	private static final ThreadLocal<ScratchBuffers> BUFFERS = ThreadLocal.withInitial(ScratchBuffers::new);
+
+	private static final int EMPTY_SLOT = -1;
+
+	private final ColumnarRecordStore records;
+	private final List<PositionListIndex> singletonPlis;
+	private final Map<ColumnCombinationBitset, CompletableFuture<PositionListIndex>> plis;
+	private final int[] sampleRowIndices;
+
+	private final AtomicInteger numberOfSampleRejections = new AtomicInteger();
+	private final AtomicInteger numberOfFullChecks = new AtomicInteger();
+
+	public UniquenessChecker(ColumnarRecordStore records, int sampleSize) {
+		this.records = records;
+		this.singletonPlis = records.createSingletonPlis();
+		this.plis = new ConcurrentHashMap<>();
+
+		// Draw a fixed random sample of rows (sorted for locality); sampling is pointless if it covers all rows anyway
+		int numberOfRows = records.getNumberOfRows();
+		this.sampleRowIndices = sampleSize > 0 && sampleSize < numberOfRows
+				? new Random(numberOfRows).ints(0, numberOfRows).distinct().limit(sampleSize).sorted().toArray()
+				: new int[0];
+	}
+
+	public void startLevel(int level) {
+		// The lattice is traversed level by level, so PLIs two levels below the current one are not needed anymore
+		this.plis.keySet().removeIf(cachedCombination -> cachedCombination.size() < level - 1);
+	}
+
+	public List<PositionListIndex> getSingletonPlis() {
+		return this.singletonPlis;
+	}
+
+	// Number of multi-column combinations that the sample has proven not unique
+	public int getNumberOfSampleRejections() {
+		return this.numberOfSampleRejections.get();
+	}
+
+	// Number of multi-column combinations that have been checked against all rows
+	public int getNumberOfFullChecks() {
+		return this.numberOfFullChecks.get();
+	}
+
+	// Thread-safe for candidates of the same level, which only read the PLIs of the previous level
+	public boolean isUnique(ColumnCombinationBitset columnCombination) {
+		return this.findDuplicate(columnCombination) == null;
+	}
+
+	// Returns the indices of two rows that agree in all columns of the combination, or null if it is unique
+	public int[] findDuplicate(ColumnCombinationBitset columnCombination) {
+		List<Integer> columnIndices = columnCombination.getSetBits();
+		int lastColumnIndex = columnIndices.get(columnIndices.size() - 1);
+		if (columnIndices.size() == 1) {
+			PositionListIndex pli = this.singletonPlis.get(lastColumnIndex);
+			return this.cacheIfNotUnique(columnCombination, pli);
+		}
+
+		// A duplicate within the sample proves that the combination is not unique, which spares us the full check.
+		// We don't build its PLI then; if a child needs it, it is computed from the nearest cached ancestor.
+		int[] duplicate = this.findDuplicateInSample(columnIndices);
+		if (duplicate != null) {
+			this.numberOfSampleRejections.incrementAndGet();
+			return duplicate;
+		}
+		this.numberOfFullChecks.incrementAndGet();
+
+		// Probe the value ids of the added column within each cluster of the parent's PLI.
+		// We only build the refined PLI if the combination is not unique, since only then it will be extended.
+		PositionListIndex parentPli = this.getPli(columnCombination.minus(new ColumnCombinationBitset(lastColumnIndex)));
+		duplicate = this.findDuplicateWithin(parentPli, lastColumnIndex);
+		if (duplicate != null) {
+			this.computePliIfAbsent(columnCombination, parentPli, lastColumnIndex);
+		}
+		return duplicate;
+	}
+
+	private int[] cacheIfNotUnique(ColumnCombinationBitset columnCombination, PositionListIndex pli) {
+		// A stripped partition without any key error consists of singleton clusters only, i.e. the combination is unique.
+		// Non-unique combinations will be extended in the next lattice level, so we keep their PLI for the intersection.
+		if (pli.getRawKeyError() == 0) {
+			return null;
+		}
+		this.plis.put(columnCombination, CompletableFuture.completedFuture(pli));
+		LongArrayList cluster = pli.getClusters().get(0);
+		return new int[] { (int) cluster.getLong(0), (int) cluster.getLong(1) };
+	}
+
+	private PositionListIndex getPli(ColumnCombinationBitset columnCombination) {
+		// The parent node has been checked before and was not unique, so its PLI is usually cached
+		CompletableFuture<PositionListIndex> cachedPli = this.plis.get(columnCombination);
+		if (cachedPli != null) {
+			return cachedPli.join();
+		}
+
+		List<Integer> columnIndices = columnCombination.getSetBits();
+		int lastColumnIndex = columnIndices.get(columnIndices.size() - 1);
+		if (columnIndices.size() == 1) {
+			return this.singletonPlis.get(lastColumnIndex);
+		}
+		PositionListIndex parentPli = this.getPli(columnCombination.minus(new ColumnCombinationBitset(lastColumnIndex)));
+		return this.computePliIfAbsent(columnCombination, parentPli, lastColumnIndex);
+	}
+
+	private PositionListIndex computePliIfAbsent(ColumnCombinationBitset columnCombination, PositionListIndex parentPli, int lastColumnIndex) {
+		// Sibling candidates share their parents, so concurrent checks may request the same PLI.
+		// The first one registers a future and refines the PLI, all others wait for it instead of refining it again.
+		CompletableFuture<PositionListIndex> future = new CompletableFuture<>();
+		CompletableFuture<PositionListIndex> cachedPli = this.plis.putIfAbsent(columnCombination, future);
+		if (cachedPli != null) {
+			return cachedPli.join();
+		}
+		try {
+			PositionListIndex pli = this.refine(parentPli, lastColumnIndex);
+			future.complete(pli);
+			return pli;
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private int[] findDuplicateInSample(List<Integer> columnIndices) {
+		if (this.sampleRowIndices.length == 0) {
+			return null;
+		}
+		int[][] columns = new int[columnIndices.size()][];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = this.records.getColumn(columnIndices.get(i));
+		}
+
+		// Insert the value id tuples of the sampled rows into an open-addressing hash table, so that duplicates collide
+		int[] slots = BUFFERS.get().clearSampleSlots(this.sampleRowIndices.length);
+		int mask = slots.length - 1;
+		int shift = Integer.numberOfLeadingZeros(mask);
+		sampledRows:
+		for (int rowIndex : this.sampleRowIndices) {
+			int hash = 1;
+			for (int[] column : columns) {
+				// Ignore sampled rows with NULL values since NULL != NULL
+				if (column[rowIndex] == ColumnarRecordStore.NULL_ID) {
+					continue sampledRows;
+				}
+				hash = 31 * hash + column[rowIndex];
+			}
+
+			// Fibonacci hashing spreads consecutive value ids over the table
+			int slot = (hash * 0x9E3779B9) >>> shift;
+			for (; slots[slot] != EMPTY_SLOT; slot = (slot + 1) & mask) {
+				if (agree(columns, slots[slot], rowIndex)) {
+					return new int[] { slots[slot], rowIndex };
+				}
+			}
+			slots[slot] = rowIndex;
+		}
+		return null;
+	}
+
+	private static boolean agree(int[][] columns, int firstRowIndex, int secondRowIndex) {
+		for (int[] column : columns) {
+			if (column[firstRowIndex] != column[secondRowIndex]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int[] findDuplicateWithin(PositionListIndex pli, int columnIndex) {
+		// Each cluster gets a new stamp, so the buffers never need to be cleared
+		int[] column = this.records.getColumn(columnIndex);
+		ScratchBuffers buffers = BUFFERS.get();
+		buffers.ensureCapacity(this.records.getDictionarySize(columnIndex));
+		int[] lastSeenStamps = buffers.lastSeenStamps;
+		int[] lastSeenRows = buffers.lastSeenRows;
+
+		for (LongArrayList cluster : pli.getClusters()) {
+			int stamp = buffers.nextStamp();
+			for (int i = 0; i < cluster.size(); i++) {
+				int rowIndex = (int) cluster.getLong(i);
+				int valueId = column[rowIndex];
+				if (valueId == ColumnarRecordStore.NULL_ID) {
+					continue;
+				}
+				if (lastSeenStamps[valueId] == stamp) {
+					return new int[] { lastSeenRows[valueId], rowIndex };
+				}
+				lastSeenStamps[valueId] = stamp;
+				lastSeenRows[valueId] = rowIndex;
+			}
+		}
+		return null;
+	}
+
+	private PositionListIndex refine(PositionListIndex pli, int columnIndex) {
+		// The sub-clusters are reset after each cluster, so the buffer is empty again after each refinement
+		int[] column = this.records.getColumn(columnIndex);
+		ScratchBuffers buffers = BUFFERS.get();
+		buffers.ensureCapacity(this.records.getDictionarySize(columnIndex));
+		LongArrayList[] subClusters = buffers.subClusters;
+		List<LongArrayList> clusters = new ArrayList<>();
+		List<Integer> touchedValueIds = new ArrayList<>();
+
+		// Split each cluster by the value ids of the added column, which is an intersection with the column's PLI
+		for (LongArrayList cluster : pli.getClusters()) {
+			for (int i = 0; i < cluster.size(); i++) {
+				long rowIndex = cluster.getLong(i);
+				int valueId = column[(int) rowIndex];
+				if (valueId == ColumnarRecordStore.NULL_ID) {
+					continue;
+				}
+				if (subClusters[valueId] == null) {
+					subClusters[valueId] = new LongArrayList();
+					touchedValueIds.add(valueId);
+				}
+				subClusters[valueId].add(rowIndex);
+			}
+
+			for (int valueId : touchedValueIds) {
+				if (subClusters[valueId].size() > 1) {
+					clusters.add(subClusters[valueId]);
+				}
+				subClusters[valueId] = null;
+			}
+			touchedValueIds.clear();
+		}
+		return new PositionListIndex(clusters, this.records.getNumberOfRows());
+	}
+
+	private static class ScratchBuffers {
+		int[] lastSeenStamps = new int[0];
+		int[] lastSeenRows = new int[0];
+		LongArrayList[] subClusters = new LongArrayList[0];
+		int[] sampleSlots = new int[0];
+		int stamp = 0;
+
+		void ensureCapacity(int dictionarySize) {
+			if (this.lastSeenStamps.length < dictionarySize) {
+				this.lastSeenStamps = new int[dictionarySize];
+				this.lastSeenRows = new int[dictionarySize];
+				this.subClusters = new LongArrayList[dictionarySize];
+				this.stamp = 0;
+			}
+		}
+
+		int[] clearSampleSlots(int sampleSize) {
+			// A power of two with a load factor of at most 0.5 keeps the probe sequences short
+			int numberOfSlots = Integer.highestOneBit(Math.max(sampleSize, 1)) << 2;
+			if (this.sampleSlots.length != numberOfSlots) {
+				this.sampleSlots = new int[numberOfSlots];
+			}
+			Arrays.fill(this.sampleSlots, EMPTY_SLOT);
+			return this.sampleSlots;
+		}
+
+		int nextStamp() {
+			// Stamps start at 1, so that fresh entries never match; on overflow, we start over with cleared stamps
+			if (this.stamp == Integer.MAX_VALUE) {
+				Arrays.fill(this.lastSeenStamps, 0);
+				this.stamp = 0;
+			}
+			return ++this.stamp;
+		}
+	}
+}
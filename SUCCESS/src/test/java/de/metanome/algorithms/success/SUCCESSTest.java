@@ -1,13 +1,51 @@
 package de.metanome.algorithms.success;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import de.metanome.algorithm_integration.AlgorithmExecutionException;
+import de.metanome.algorithm_integration.ColumnCombination;
+import de.metanome.algorithm_integration.ColumnIdentifier;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.algorithm_integration.input.RelationalInputGenerator;
+import de.metanome.algorithm_integration.result_receiver.UniqueColumnCombinationResultReceiver;
+import de.metanome.algorithm_integration.results.UniqueColumnCombination;
+
 public class SUCCESSTest {
 
+  private static final String RELATION_NAME = "R";
+  private static final List<String> COLUMN_NAMES = Arrays.asList("A", "B", "C", "D");
+
+  // Minimal UCCs: AB, AC, BD and CD
+  private static final String[][] ROWS = {
+    { "1", "x", "p", "1" },
+    { "1", "y", "q", "2" },
+    { "2", "x", "q", "3" },
+    { "2", "y", "p", "3" },
+    { "3", "x", "p", "4" },
+    { "3", "y", "r", "4" }
+  };
+
+  private static final int NUMBER_OF_REPETITIONS = 20;
+
+  private SUCCESS algorithm;
+
   @Before
   public void setUp() throws Exception {
+    this.algorithm = new SUCCESS();
   }
 
   @After
@@ -19,7 +57,84 @@ public class SUCCESSTest {
   }
 
   @Test
-  public void testExecute() {
+  public void testExecute() throws AlgorithmExecutionException {
+    Set<UniqueColumnCombination> expectedResults = new HashSet<>(Arrays.asList(
+        createUcc("A", "B"), createUcc("A", "C"), createUcc("B", "D"), createUcc("C", "D")));
+    assertEquals(expectedResults, this.execute(this.algorithm));
+  }
+
+  @Test
+  public void testExecuteInParallel() throws AlgorithmExecutionException {
+    // With ten columns, each level has far more candidates than threads.
+    // The run is repeated, so that races on the shared PLI cache get a chance to show up.
+    FixedInputGenerator inputGenerator = createRandomInput(10, 60);
+    Set<UniqueColumnCombination> expectedResults = this.execute(new SUCCESS(), inputGenerator);
+    for (int i = 0; i < NUMBER_OF_REPETITIONS; i++) {
+      SUCCESS parallelAlgorithm = new SUCCESS();
+      parallelAlgorithm.setIntegerConfigurationValue(SUCCESS.Identifier.NUMBER_OF_THREADS.name(), 4);
+      assertEquals(expectedResults, this.execute(parallelAlgorithm, inputGenerator));
+    }
+  }
+
+  @Test
+  public void testExecuteWithSampling() throws AlgorithmExecutionException {
+    // The default sample size exceeds the number of rows, so the default run checks all six pairs of columns in full
+    SUCCESS unsampledAlgorithm = new SUCCESS();
+    Set<UniqueColumnCombination> expectedResults = this.execute(unsampledAlgorithm);
+    assertEquals(0, unsampledAlgorithm.uniquenessChecker.getNumberOfSampleRejections());
+    assertEquals(6, unsampledAlgorithm.uniquenessChecker.getNumberOfFullChecks());
+
+    // AD has the duplicate pairs (3, 4) and (5, 6), and any five of the six rows contain one of them
+    this.algorithm.setIntegerConfigurationValue(SUCCESS.Identifier.SAMPLE_SIZE.name(), 5);
+    assertEquals(expectedResults, this.execute(this.algorithm));
+    UniquenessChecker uniquenessChecker = this.algorithm.uniquenessChecker;
+    assertTrue(uniquenessChecker.getNumberOfSampleRejections() >= 1);
+    assertEquals(6, uniquenessChecker.getNumberOfSampleRejections() + uniquenessChecker.getNumberOfFullChecks());
+  }
+
+  @Test
+  public void testExecuteWithPrintedResults() throws AlgorithmExecutionException {
+    // The input has minimal UCCs of three different sizes
+    FixedInputGenerator inputGenerator = createRandomInput(10, 60);
+    Set<UniqueColumnCombination> expectedResults = this.execute(new SUCCESS(), inputGenerator);
+    this.algorithm.setBooleanConfigurationValue(SUCCESS.Identifier.PRINT_RESULTS.name(), true);
+    PrintStream standardOutput = System.out;
+    ByteArrayOutputStream printedResults = new ByteArrayOutputStream();
+    ResultCollector resultReceiver;
+    try {
+      System.setOut(new PrintStream(printedResults, true));
+      resultReceiver = this.collect(this.algorithm, inputGenerator);
+    } finally {
+      System.setOut(standardOutput);
+    }
+    assertEquals(expectedResults, resultReceiver.results);
+
+    // Each UCC is emitted as soon as its level is done, so all UCCs of size k arrive before any UCC of size k + 1.
+    // Each of them is printed right before it is emitted.
+    StringBuilder expectedOutput = new StringBuilder();
+    int previousSize = 0;
+    for (UniqueColumnCombination ucc : resultReceiver.receivedResults) {
+      int size = ucc.getColumnCombination().getColumnIdentifiers().size();
+      assertTrue(size >= previousSize);
+      previousSize = size;
+      expectedOutput.append(ucc).append(System.lineSeparator());
+    }
+    assertEquals(expectedOutput.toString(), printedResults.toString());
+  }
+
+  @Test
+  public void testExecuteHybrid() throws AlgorithmExecutionException {
+    Set<UniqueColumnCombination> expectedResults = this.execute(new SUCCESS());
+    this.algorithm.setStringConfigurationValue(SUCCESS.Identifier.STRATEGY.name(), SUCCESSAlgorithm.Strategy.HYBRID.name());
+    assertEquals(expectedResults, this.execute(this.algorithm));
+  }
+
+  @Test
+  public void testExecuteHybridInParallel() throws AlgorithmExecutionException {
+    Set<UniqueColumnCombination> expectedResults = this.execute(new SUCCESS());
+    this.algorithm.setStringConfigurationValue(SUCCESS.Identifier.STRATEGY.name(), SUCCESSAlgorithm.Strategy.HYBRID.name());
+    this.algorithm.setIntegerConfigurationValue(SUCCESS.Identifier.NUMBER_OF_THREADS.name(), 4);
+    assertEquals(expectedResults, this.execute(this.algorithm));
   }
 
   @Test
@@ -38,4 +153,118 @@ public class SUCCESSTest {
   public void testSetResultReceiverUniqueColumnCombinationResultReceiver() {
   }
 
+  private Set<UniqueColumnCombination> execute(SUCCESS algorithm) throws AlgorithmExecutionException {
+    return this.execute(algorithm, new FixedInputGenerator(COLUMN_NAMES, ROWS));
+  }
+
+  private Set<UniqueColumnCombination> execute(SUCCESS algorithm, FixedInputGenerator inputGenerator) throws AlgorithmExecutionException {
+    return this.collect(algorithm, inputGenerator).results;
+  }
+
+  private ResultCollector collect(SUCCESS algorithm, FixedInputGenerator inputGenerator) throws AlgorithmExecutionException {
+    ResultCollector resultReceiver = new ResultCollector();
+    algorithm.setRelationalInputConfigurationValue(SUCCESS.Identifier.INPUT_GENERATOR.name(), inputGenerator);
+    algorithm.setResultReceiver(resultReceiver);
+    algorithm.execute();
+    return resultReceiver;
+  }
+
+  private static FixedInputGenerator createRandomInput(int numberOfColumns, int numberOfRows) {
+    // Four distinct values per column leave most small combinations non-unique
+    Random random = new Random(numberOfColumns * numberOfRows);
+    List<String> columnNames = new ArrayList<>();
+    for (int i = 0; i < numberOfColumns; i++) {
+      columnNames.add(String.valueOf((char) ('A' + i)));
+    }
+    String[][] rows = new String[numberOfRows][numberOfColumns];
+    for (String[] row : rows) {
+      for (int i = 0; i < numberOfColumns; i++) {
+        row[i] = String.valueOf(random.nextInt(4));
+      }
+    }
+    return new FixedInputGenerator(columnNames, rows);
+  }
+
+  private static UniqueColumnCombination createUcc(String... columnNames) {
+    ColumnIdentifier[] columnIdentifiers = new ColumnIdentifier[columnNames.length];
+    for (int i = 0; i < columnNames.length; i++) {
+      columnIdentifiers[i] = new ColumnIdentifier(RELATION_NAME, columnNames[i]);
+    }
+    return new UniqueColumnCombination(new ColumnCombination(columnIdentifiers));
+  }
+
+  private static class FixedInputGenerator implements RelationalInputGenerator {
+
+    private final List<String> columnNames;
+    private final String[][] rows;
+
+    public FixedInputGenerator(List<String> columnNames, String[][] rows) {
+      this.columnNames = columnNames;
+      this.rows = rows;
+    }
+
+    @Override
+    public RelationalInput generateNewCopy() {
+      return new FixedInput(this);
+    }
+
+    public void close() {
+    }
+  }
+
+  private static class FixedInput implements RelationalInput {
+
+    private final FixedInputGenerator generator;
+    private int rowIndex = 0;
+
+    public FixedInput(FixedInputGenerator generator) {
+      this.generator = generator;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.rowIndex < this.generator.rows.length;
+    }
+
+    @Override
+    public List<String> next() {
+      return Arrays.asList(this.generator.rows[this.rowIndex++]);
+    }
+
+    @Override
+    public int numberOfColumns() {
+      return this.generator.columnNames.size();
+    }
+
+    @Override
+    public String relationName() {
+      return RELATION_NAME;
+    }
+
+    @Override
+    public List<String> columnNames() {
+      return this.generator.columnNames;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private static class ResultCollector implements UniqueColumnCombinationResultReceiver {
+
+    private final Set<UniqueColumnCombination> results = new HashSet<>();
+    private final List<UniqueColumnCombination> receivedResults = new ArrayList<>();
+
+    @Override
+    public void receiveResult(UniqueColumnCombination result) {
+      this.results.add(result);
+      this.receivedResults.add(result);
+    }
+
+    public Boolean acceptedResult(UniqueColumnCombination result) {
+      return true;
+    }
+  }
+
 }
@@ -0,0 +1,151 @@
+package de.metanome.algorithms.spidey;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Candidate referenced columns of each dependent column as dense bitsets, i.e., one bit per column pair.
+// For n-ary INDs, the columns are the column combinations of the candidates.
+// Intersections are computed word-wise, and the number of dependent columns still referencing a column
+// is tracked, so that columns that can't be part of any IND anymore are recognized right away.
+public class CandidateMatrix {
+
+	private final int numberOfColumns;
+	private final long[][] references;
+	private final int[] referencingCounts;
+
+	// Number of values of each dependent column missing in each candidate referenced column, only allocated for partial INDs
+	private int[][] missingCounts = null;
+
+	public CandidateMatrix(int numberOfColumns) {
+		// Initially, there are no candidates at all
+		this.numberOfColumns = numberOfColumns;
+		this.references = new long[numberOfColumns][];
+		this.referencingCounts = new int[numberOfColumns];
+		for (int dependantIndex = 0; dependantIndex < numberOfColumns; dependantIndex++) {
+			this.references[dependantIndex] = createBitset(numberOfColumns);
+		}
+	}
+
+	public static CandidateMatrix allPairs(int numberOfColumns) {
+		// Every column is a candidate referenced column of every other column
+		CandidateMatrix matrix = new CandidateMatrix(numberOfColumns);
+		for (int dependantIndex = 0; dependantIndex < numberOfColumns; dependantIndex++) {
+			for (int referencedIndex = 0; referencedIndex < numberOfColumns; referencedIndex++) {
+				if (referencedIndex != dependantIndex) {
+					matrix.add(dependantIndex, referencedIndex);
+				}
+			}
+		}
+		return matrix;
+	}
+
+	public static long[] createBitset(int numberOfColumns) {
+		return new long[(numberOfColumns + 63) / 64];
+	}
+
+	public static void set(long[] bitset, int columnIndex) {
+		bitset[columnIndex >>> 6] |= 1L << columnIndex;
+	}
+
+	public static void clear(long[] bitset, int columnIndex) {
+		bitset[columnIndex >>> 6] &= ~(1L << columnIndex);
+	}
+
+	public boolean contains(int dependantIndex, int referencedIndex) {
+		return (this.references[dependantIndex][referencedIndex >>> 6] & (1L << referencedIndex)) != 0;
+	}
+
+	public void add(int dependantIndex, int referencedIndex) {
+		if (!this.contains(dependantIndex, referencedIndex)) {
+			set(this.references[dependantIndex], referencedIndex);
+			this.referencingCounts[referencedIndex]++;
+		}
+	}
+
+	public void remove(int dependantIndex, int referencedIndex) {
+		if (this.contains(dependantIndex, referencedIndex)) {
+			clear(this.references[dependantIndex], referencedIndex);
+			this.referencingCounts[referencedIndex]--;
+		}
+	}
+
+	public void retainAll(int dependantIndex, long[] columns) {
+		// Word-wise intersection, in which only the bits of dropped candidates are visited to update the counts
+		long[] references = this.references[dependantIndex];
+		for (int i = 0; i < references.length; i++) {
+			long removed = references[i] & ~columns[i];
+			if (removed != 0) {
+				references[i] &= columns[i];
+				while (removed != 0) {
+					this.referencingCounts[i * 64 + Long.numberOfTrailingZeros(removed)]--;
+					removed &= removed - 1;
+				}
+			}
+		}
+	}
+
+	public void countMissing(int dependantIndex, long[] columns, long maxMissingCount) {
+		// Partial counterpart of retainAll: each candidate outside the given columns misses the current value,
+		// and candidates missing more than the given number of values are dropped
+		if (this.missingCounts == null) {
+			this.missingCounts = new int[this.numberOfColumns][];
+		}
+		if (this.missingCounts[dependantIndex] == null) {
+			this.missingCounts[dependantIndex] = new int[this.numberOfColumns];
+		}
+		int[] missingCounts = this.missingCounts[dependantIndex];
+		long[] references = this.references[dependantIndex];
+		for (int i = 0; i < references.length; i++) {
+			long missing = references[i] & ~columns[i];
+			while (missing != 0) {
+				int referencedIndex = i * 64 + Long.numberOfTrailingZeros(missing);
+				if (++missingCounts[referencedIndex] > maxMissingCount) {
+					this.remove(dependantIndex, referencedIndex);
+				}
+				missing &= missing - 1;
+			}
+		}
+	}
+
+	public int getMissingCount(int dependantIndex, int referencedIndex) {
+		if (this.missingCounts == null || this.missingCounts[dependantIndex] == null) {
+			return 0;
+		}
+		return this.missingCounts[dependantIndex][referencedIndex];
+	}
+
+	public boolean hasReferences(int dependantIndex) {
+		for (long word : this.references[dependantIndex]) {
+			if (word != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean isReferenced(int referencedIndex) {
+		return this.referencingCounts[referencedIndex] > 0;
+	}
+
+	public boolean isActive(int columnIndex) {
+		// The values of a column only matter as long as it is part of some candidate
+		return this.hasReferences(columnIndex) || this.isReferenced(columnIndex);
+	}
+
+	public List<Integer> getReferences(int dependantIndex) {
+		List<Integer> referencedIndices = new ArrayList<>();
+		long[] references = this.references[dependantIndex];
+		for (int i = 0; i < references.length; i++) {
+			long word = references[i];
+			while (word != 0) {
+				referencedIndices.add(i * 64 + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+		return referencedIndices;
+	}
+
+	public int getNumberOfColumns() {
+		return this.numberOfColumns;
+	}
+}
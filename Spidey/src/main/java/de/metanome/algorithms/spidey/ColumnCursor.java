@@ -0,0 +1,40 @@
+package de.metanome.algorithms.spidey;
+
+import java.util.Iterator;
+
+// Cursor over the sorted distinct values of a column, as consumed by the merge phase.
+// Cursors are ordered by their current value, so that a min-heap of cursors yields the values of all columns in order.
+// The values may come from an in-memory array as well as from a run file on disk (see SortedRunReader).
+public class ColumnCursor implements Comparable<ColumnCursor> {
+
+	private final int columnIndex;
+	private final Iterator<String> values;
+	private String value;
+
+	public ColumnCursor(int columnIndex, Iterator<String> values) {
+		this.columnIndex = columnIndex;
+		this.values = values;
+		this.advance();
+	}
+
+	public int getColumnIndex() {
+		return this.columnIndex;
+	}
+
+	public boolean hasValue() {
+		return this.value != null;
+	}
+
+	public String getValue() {
+		return this.value;
+	}
+
+	public void advance() {
+		this.value = this.values.hasNext() ? this.values.next() : null;
+	}
+
+	@Override
+	public int compareTo(ColumnCursor other) {
+		return this.value.compareTo(other.value);
+	}
+}
@@ -0,0 +1,46 @@
+package de.metanome.algorithms.spidey;
+
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Heap of the cursors over the actual values of the columns, which come from sorted arrays or run files (see SortedValueStore)
+public class ColumnCursorHeap implements ColumnHeap {
+
+	private final PriorityQueue<ColumnCursor> cursors;
+	private final ColumnCursor[] cursorsByColumn;
+
+	public ColumnCursorHeap(List<ColumnCursor> cursors) {
+		this.cursors = new PriorityQueue<>(Math.max(1, cursors.size()));
+		this.cursorsByColumn = new ColumnCursor[cursors.size()];
+		for (ColumnCursor cursor : cursors) {
+			this.cursorsByColumn[cursor.getColumnIndex()] = cursor;
+			if (cursor.hasValue()) {
+				this.cursors.add(cursor);
+			}
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.cursors.isEmpty();
+	}
+
+	@Override
+	public int pollMinimum(int[] columnIndices) {
+		String minValue = this.cursors.peek().getValue();
+		int numberOfColumns = 0;
+		while (!this.cursors.isEmpty() && this.cursors.peek().getValue().equals(minValue)) {
+			columnIndices[numberOfColumns++] = this.cursors.poll().getColumnIndex();
+		}
+		return numberOfColumns;
+	}
+
+	@Override
+	public void advance(int columnIndex) {
+		ColumnCursor cursor = this.cursorsByColumn[columnIndex];
+		cursor.advance();
+		if (cursor.hasValue()) {
+			this.cursors.add(cursor);
+		}
+	}
+}
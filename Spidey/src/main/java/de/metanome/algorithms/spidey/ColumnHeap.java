@@ -0,0 +1,14 @@
+package de.metanome.algorithms.spidey;
+
+// Min-heap over the sorted distinct values of several columns, as consumed by the merge phase.
+// Each step removes all columns whose current value is the smallest one; the merge then advances
+// the columns it still needs, which puts them back into the heap unless they are exhausted.
+public interface ColumnHeap {
+
+	public boolean isEmpty();
+
+	// Removes all columns at the smallest value, stores their indices and returns their number
+	public int pollMinimum(int[] columnIndices);
+
+	public void advance(int columnIndex);
+}
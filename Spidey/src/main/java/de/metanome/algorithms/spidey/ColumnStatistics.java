@@ -0,0 +1,69 @@
+package de.metanome.algorithms.spidey;
+
+// Cheap statistics of the distinct values of a column, which are collected while loading the values.
+// They allow ruling out many IND candidates before the columns are sorted and merged: if A is included in B,
+// the values of A lie between the minimum and maximum of B, A has at most as many distinct values as B,
+// and each bit set in the Bloom filter of A is set in the Bloom filter of B as well.
+public class ColumnStatistics {
+
+	// Number of 64 bit words of each Bloom filter, i.e., 16384 bits or 2 KB per column
+	private static final int BLOOM_FILTER_WORDS = 256;
+
+	private final long[] bloomFilter = new long[BLOOM_FILTER_WORDS];
+	private String min = null;
+	private String max = null;
+	private long distinctCount = 0;
+
+	public void add(String value) {
+		// Called once per distinct value, unless the values were spilled to disk in between (see isDistinctCountExact)
+		if (this.min == null || value.compareTo(this.min) < 0) {
+			this.min = value;
+		}
+		if (this.max == null || value.compareTo(this.max) > 0) {
+			this.max = value;
+		}
+		this.distinctCount++;
+
+		// Two bit positions derived from the spread string hash
+		long hash = value.hashCode() * 0x9E3779B97F4A7C15L;
+		int first = (int) (hash >>> 32) & (64 * BLOOM_FILTER_WORDS - 1);
+		int second = (int) hash >>> 8 & (64 * BLOOM_FILTER_WORDS - 1);
+		this.bloomFilter[first >>> 6] |= 1L << first;
+		this.bloomFilter[second >>> 6] |= 1L << second;
+	}
+
+	public boolean isEmpty() {
+		return this.min == null;
+	}
+
+	public long getDistinctCount() {
+		return this.distinctCount;
+	}
+
+	public boolean mayBeIncludedIn(ColumnStatistics referenced, boolean isDistinctCountExact, double coverageThreshold) {
+		if (this.isEmpty() || coverageThreshold == 0) {
+			return true;
+		}
+		if (referenced.isEmpty()) {
+			return false;
+		}
+
+		// A partial IND may have values outside the range or Bloom filter of the referenced column,
+		// but the referenced column needs to contain enough distinct values to cover the threshold
+		if (coverageThreshold < 1) {
+			return !isDistinctCountExact || coverageThreshold * this.distinctCount <= referenced.distinctCount;
+		}
+
+		if (this.min.compareTo(referenced.min) < 0
+				|| this.max.compareTo(referenced.max) > 0
+				|| (isDistinctCountExact && this.distinctCount > referenced.distinctCount)) {
+			return false;
+		}
+		for (int i = 0; i < BLOOM_FILTER_WORDS; i++) {
+			if ((this.bloomFilter[i] & ~referenced.bloomFilter[i]) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
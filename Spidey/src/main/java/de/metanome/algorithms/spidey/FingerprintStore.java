@@ -0,0 +1,172 @@
+package de.metanome.algorithms.spidey;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+// Collects the 64 bit fingerprints of all columns in arrays of longs, which are sorted and deduplicated
+// once their relation has been read. Unlike SortedValueStore, the fingerprints are never written to disk:
+// they take 8 bytes per distinct value regardless of the value's length, and are compared in a single step.
+public class FingerprintStore {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final long[][] fingerprints;
+	private final int[] sizes;
+
+	public FingerprintStore(int numberOfColumns) {
+		this.fingerprints = new long[numberOfColumns][INITIAL_CAPACITY];
+		this.sizes = new int[numberOfColumns];
+	}
+
+	public void add(int columnIndex, long fingerprint) {
+		// Columns of different relations are disjoint, so relations can be added concurrently without any locking
+		if (this.sizes[columnIndex] == this.fingerprints[columnIndex].length) {
+			this.grow(columnIndex);
+		}
+		this.fingerprints[columnIndex][this.sizes[columnIndex]++] = fingerprint;
+	}
+
+	private void grow(int columnIndex) {
+		// Duplicates are removed before the array grows, so that its size depends on the number of distinct fingerprints only
+		this.sortColumn(columnIndex);
+		if (this.sizes[columnIndex] > this.fingerprints[columnIndex].length / 2) {
+			this.fingerprints[columnIndex] = Arrays.copyOf(this.fingerprints[columnIndex], this.fingerprints[columnIndex].length * 2);
+		}
+	}
+
+	public void sortColumns(int columnOffset, int numberOfColumns) {
+		// Called by the task that read the columns' relation, so that the columns of different relations are sorted in parallel
+		for (int columnIndex = columnOffset; columnIndex < columnOffset + numberOfColumns; columnIndex++) {
+			this.sortColumn(columnIndex);
+		}
+	}
+
+	private void sortColumn(int columnIndex) {
+		long[] values = this.fingerprints[columnIndex];
+		Arrays.sort(values, 0, this.sizes[columnIndex]);
+		int size = 0;
+		for (int i = 0; i < this.sizes[columnIndex]; i++) {
+			if (size == 0 || values[i] != values[size - 1]) {
+				values[size++] = values[i];
+			}
+		}
+		this.sizes[columnIndex] = size;
+	}
+
+	public long[] getDistinctCounts() {
+		// Exact once the columns are sorted, since fingerprints are never spilled
+		return Arrays.stream(this.sizes).asLongStream().toArray();
+	}
+
+	public boolean mayBeIncludedIn(int dependantIndex, int referencedIndex, double coverageThreshold) {
+		// Like ColumnStatistics, but with the smallest and largest fingerprint instead of values and without a Bloom filter
+		int dependantSize = this.sizes[dependantIndex];
+		int referencedSize = this.sizes[referencedIndex];
+		if (dependantSize == 0 || coverageThreshold == 0) {
+			return true;
+		}
+		if (referencedSize == 0) {
+			return false;
+		}
+		if (coverageThreshold < 1) {
+			return coverageThreshold * dependantSize <= referencedSize;
+		}
+		return dependantSize <= referencedSize
+				&& this.fingerprints[dependantIndex][0] >= this.fingerprints[referencedIndex][0]
+				&& this.fingerprints[dependantIndex][dependantSize - 1] <= this.fingerprints[referencedIndex][referencedSize - 1];
+	}
+
+	public ColumnHeap createHeap(IntPredicate isRequired) {
+		// Columns that are not required are not merged
+		FingerprintHeap heap = new FingerprintHeap(this.fingerprints, this.sizes);
+		for (int columnIndex = 0; columnIndex < this.sizes.length; columnIndex++) {
+			if (this.sizes[columnIndex] > 0 && isRequired.test(columnIndex)) {
+				heap.push(columnIndex);
+			}
+		}
+		return heap;
+	}
+
+	private static class FingerprintHeap implements ColumnHeap {
+		// Binary min-heap of column indices, ordered by the fingerprint at each column's current position
+		private final long[][] fingerprints;
+		private final int[] sizes;
+		private final int[] positions;
+		private final int[] heap;
+		private int heapSize = 0;
+
+		FingerprintHeap(long[][] fingerprints, int[] sizes) {
+			this.fingerprints = fingerprints;
+			this.sizes = sizes;
+			this.positions = new int[sizes.length];
+			this.heap = new int[sizes.length];
+		}
+
+		private long getValue(int columnIndex) {
+			return this.fingerprints[columnIndex][this.positions[columnIndex]];
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return this.heapSize == 0;
+		}
+
+		@Override
+		public int pollMinimum(int[] columnIndices) {
+			long minValue = this.getValue(this.heap[0]);
+			int numberOfColumns = 0;
+			while (this.heapSize > 0 && this.getValue(this.heap[0]) == minValue) {
+				columnIndices[numberOfColumns++] = this.heap[0];
+				this.heap[0] = this.heap[--this.heapSize];
+				this.siftDown(0);
+			}
+			return numberOfColumns;
+		}
+
+		@Override
+		public void advance(int columnIndex) {
+			if (++this.positions[columnIndex] < this.sizes[columnIndex]) {
+				this.push(columnIndex);
+			}
+		}
+
+		void push(int columnIndex) {
+			this.heap[this.heapSize] = columnIndex;
+			this.siftUp(this.heapSize++);
+		}
+
+		private void siftUp(int position) {
+			int columnIndex = this.heap[position];
+			long value = this.getValue(columnIndex);
+			while (position > 0) {
+				int parent = (position - 1) >>> 1;
+				if (this.getValue(this.heap[parent]) <= value) {
+					break;
+				}
+				this.heap[position] = this.heap[parent];
+				position = parent;
+			}
+			this.heap[position] = columnIndex;
+		}
+
+		private void siftDown(int position) {
+			int columnIndex = this.heap[position];
+			long value = this.getValue(columnIndex);
+			while (true) {
+				int child = 2 * position + 1;
+				if (child >= this.heapSize) {
+					break;
+				}
+				if (child + 1 < this.heapSize && this.getValue(this.heap[child + 1]) < this.getValue(this.heap[child])) {
+					child++;
+				}
+				if (value <= this.getValue(this.heap[child])) {
+					break;
+				}
+				this.heap[position] = this.heap[child];
+				position = child;
+			}
+			this.heap[position] = columnIndex;
+		}
+	}
+}
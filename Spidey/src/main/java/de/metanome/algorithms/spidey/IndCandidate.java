@@ -0,0 +1,84 @@
+package de.metanome.algorithms.spidey;
+
+import java.util.Arrays;
+
+// N-ary IND candidate as aligned arrays of global column indices, i.e., dependant[i] corresponds to referenced[i].
+// The dependent columns are in ascending order, so that each candidate has a single representation.
+public class IndCandidate {
+
+	private final int[] dependant;
+	private final int[] referenced;
+
+	public IndCandidate(int[] dependant, int[] referenced) {
+		this.dependant = dependant;
+		this.referenced = referenced;
+	}
+
+	public int[] getDependant() {
+		return this.dependant;
+	}
+
+	public int[] getReferenced() {
+		return this.referenced;
+	}
+
+	public int getArity() {
+		return this.dependant.length;
+	}
+
+	public IndCandidate getPrefix() {
+		// The candidate without its last column pair, which is shared by the two candidates it is generated from
+		return new IndCandidate(Arrays.copyOf(this.dependant, this.getArity() - 1), Arrays.copyOf(this.referenced, this.getArity() - 1));
+	}
+
+	public IndCandidate without(int position) {
+		int[] dependant = new int[this.getArity() - 1];
+		int[] referenced = new int[this.getArity() - 1];
+		for (int i = 0, j = 0; i < this.getArity(); i++) {
+			if (i != position) {
+				dependant[j] = this.dependant[i];
+				referenced[j++] = this.referenced[i];
+			}
+		}
+		return new IndCandidate(dependant, referenced);
+	}
+
+	public IndCandidate extend(int dependantIndex, int referencedIndex) {
+		int[] dependant = Arrays.copyOf(this.dependant, this.getArity() + 1);
+		int[] referenced = Arrays.copyOf(this.referenced, this.getArity() + 1);
+		dependant[this.getArity()] = dependantIndex;
+		referenced[this.getArity()] = referencedIndex;
+		return new IndCandidate(dependant, referenced);
+	}
+
+	public boolean containsColumn(int columnIndex) {
+		for (int i = 0; i < this.getArity(); i++) {
+			if (this.dependant[i] == columnIndex || this.referenced[i] == columnIndex) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof IndCandidate)) {
+			return false;
+		}
+		IndCandidate other = (IndCandidate) obj;
+		return Arrays.equals(this.dependant, other.dependant) && Arrays.equals(this.referenced, other.referenced);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(this.dependant) + Arrays.hashCode(this.referenced);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(this.dependant) + " [= " + Arrays.toString(this.referenced);
+	}
+}
@@ -0,0 +1,68 @@
+package de.metanome.algorithms.spidey;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Streams the values of a run file written by SortedValueStore. Each value is stored as its
+// length followed by its chars, so that values of any length are read back exactly.
+public class SortedRunReader implements Iterator<String>, Closeable {
+
+	private final File file;
+	private final DataInputStream input;
+	private String next;
+
+	public SortedRunReader(File file) throws IOException {
+		this.file = file;
+		this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		this.next = this.read();
+	}
+
+	private String read() throws IOException {
+		int length;
+		try {
+			length = this.input.readInt();
+		} catch (EOFException e) {
+			return null;
+		}
+
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = this.input.readChar();
+		}
+		return new String(chars);
+	}
+
+	@Override
+	public boolean hasNext() {
+		return this.next != null;
+	}
+
+	@Override
+	public String next() {
+		if (this.next == null) {
+			throw new NoSuchElementException();
+		}
+
+		// Cursors read values while being compared in a heap, so IO errors can't be checked exceptions here
+		String value = this.next;
+		try {
+			this.next = this.read();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read sorted values from " + this.file, e);
+		}
+		return value;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.input.close();
+	}
+}
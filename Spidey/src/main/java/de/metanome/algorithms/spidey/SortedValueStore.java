@@ -0,0 +1,307 @@
+package de.metanome.algorithms.spidey;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+import de.metanome.algorithm_integration.AlgorithmExecutionException;
+import de.metanome.algorithm_integration.algorithm_execution.FileCreationException;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
+
+// Collects the distinct values of all columns and provides them in sorted order. As long as the
+// values fit into the memory budget, they are kept in hash sets, which are sorted into arrays once
+// their relation has been read. Otherwise, like in SPIDER, the
+// sorted distinct values of each column are written to run files, which are merged into a single
+// sorted file per column afterwards, so that the merge phase can stream the columns from disk.
+public class SortedValueStore implements Closeable {
+
+	// Maximum number of runs that are merged at once, which bounds the number of open files and read buffers
+	private static final int MAX_MERGE_FAN_IN = 64;
+
+	private final long memoryBudget;
+	private final FileGenerator tempFileGenerator;
+	private final List<Set<String>> distinctValues;
+	private final String[][] sortedValues;
+	private final List<ColumnStatistics> statistics;
+	private final List<List<File>> runs;
+	private final List<File> files = new ArrayList<>();
+	private final List<SortedRunReader> readers = new ArrayList<>();
+
+	private final ReentrantReadWriteLock spillLock = new ReentrantReadWriteLock();
+	private final AtomicLong usedMemory = new AtomicLong();
+	private volatile boolean isSpilled = false;
+
+	public SortedValueStore(int numberOfColumns, long memoryBudget, FileGenerator tempFileGenerator) {
+		this.memoryBudget = memoryBudget;
+		this.tempFileGenerator = tempFileGenerator;
+		this.distinctValues = new ArrayList<>(numberOfColumns);
+		this.sortedValues = new String[numberOfColumns][];
+		this.runs = new ArrayList<>(numberOfColumns);
+		this.statistics = new ArrayList<>(numberOfColumns);
+		for (int i = 0; i < numberOfColumns; i++) {
+			this.distinctValues.add(new HashSet<>());
+			this.statistics.add(new ColumnStatistics());
+			this.runs.add(new ArrayList<>());
+		}
+	}
+
+	public void addRow(int columnOffset, List<String> row) throws AlgorithmExecutionException {
+		// Rows of different relations may be added concurrently. Their columns are disjoint, so the hash sets
+		// only need to be guarded against spills, which are exclusive and performed between rows.
+		long addedMemory = 0;
+		this.spillLock.readLock().lock();
+		try {
+			for (int i = 0; i < row.size(); i++) {
+				String value = row.get(i);
+				if (value != null && this.distinctValues.get(columnOffset + i).add(value)) {
+					this.statistics.get(columnOffset + i).add(value);
+					addedMemory += estimateMemoryUsage(value);
+				}
+			}
+		} finally {
+			this.spillLock.readLock().unlock();
+		}
+
+		if (addedMemory > 0 && this.usedMemory.addAndGet(addedMemory) > this.memoryBudget) {
+			this.spillLock.writeLock().lock();
+			try {
+				// Another thread might have spilled in the meantime
+				if (this.usedMemory.get() > this.memoryBudget) {
+					this.spill();
+				}
+			} finally {
+				this.spillLock.writeLock().unlock();
+			}
+		}
+	}
+
+	private static long estimateMemoryUsage(String value) {
+		// Rough heap size of the string, its char array and the hash set entry on a 64 bit JVM
+		return 88 + 2L * value.length();
+	}
+
+	public void sortColumns(int columnOffset, int numberOfColumns) {
+		// Called by the task that read the columns' relation, so that the columns of different relations are sorted in parallel.
+		// Other relations might still be added to, hence this only excludes spills like adding a row does.
+		this.spillLock.readLock().lock();
+		try {
+			for (int columnIndex = columnOffset; columnIndex < columnOffset + numberOfColumns; columnIndex++) {
+				String[] values = this.distinctValues.get(columnIndex).toArray(new String[0]);
+				this.distinctValues.set(columnIndex, null);
+				Arrays.sort(values);
+				this.sortedValues[columnIndex] = values;
+			}
+		} finally {
+			this.spillLock.readLock().unlock();
+		}
+	}
+
+	private void spill() throws AlgorithmExecutionException {
+		// Writes the sorted values of each column to a new run and frees the hash sets and sorted arrays
+		for (int columnIndex = 0; columnIndex < this.distinctValues.size(); columnIndex++) {
+			Set<String> values = this.distinctValues.get(columnIndex);
+			if (values == null) {
+				if (this.sortedValues[columnIndex] != null && this.sortedValues[columnIndex].length > 0) {
+					this.runs.get(columnIndex).add(this.writeRun(Arrays.asList(this.sortedValues[columnIndex]).iterator()));
+				}
+				this.sortedValues[columnIndex] = null;
+			} else if (!values.isEmpty()) {
+				String[] sortedValues = values.toArray(new String[0]);
+				values.clear();
+				Arrays.sort(sortedValues);
+				this.runs.get(columnIndex).add(this.writeRun(Arrays.asList(sortedValues).iterator()));
+			}
+		}
+		this.usedMemory.set(0);
+		this.isSpilled = true;
+	}
+
+	public boolean isSpilled() {
+		return this.isSpilled;
+	}
+
+	public ColumnStatistics getStatistics(int columnIndex) {
+		return this.statistics.get(columnIndex);
+	}
+
+	public boolean isDistinctCountExact() {
+		// Values that were spilled before are not known to the hash sets anymore, so they might be counted twice
+		return !this.isSpilled;
+	}
+
+	public List<ColumnCursor> createCursors(IntPredicate isRequired) throws AlgorithmExecutionException {
+		// Columns are read from the sorted arrays unless the budget was exceeded before, in which case all columns are read from disk.
+		// Columns that are not required are not merged, their cursors are empty.
+		List<ColumnCursor> cursors = new ArrayList<>(this.distinctValues.size());
+		if (!this.isSpilled) {
+			for (int columnIndex = 0; columnIndex < this.distinctValues.size(); columnIndex++) {
+				String[] sortedValues = this.sortedValues[columnIndex];
+				this.sortedValues[columnIndex] = null;
+				if (sortedValues == null || !isRequired.test(columnIndex)) {
+					cursors.add(new ColumnCursor(columnIndex, Collections.emptyIterator()));
+				} else {
+					cursors.add(new ColumnCursor(columnIndex, Arrays.asList(sortedValues).iterator()));
+				}
+			}
+			return cursors;
+		}
+
+		this.spill();
+		for (int columnIndex = 0; columnIndex < this.runs.size(); columnIndex++) {
+			List<File> columnRuns = this.runs.get(columnIndex);
+			if (!isRequired.test(columnIndex)) {
+				columnRuns.forEach(this::delete);
+				columnRuns.clear();
+			}
+			while (columnRuns.size() > 1) {
+				List<File> mergedRuns = columnRuns.subList(0, Math.min(MAX_MERGE_FAN_IN, columnRuns.size()));
+				File mergedRun = this.mergeRuns(mergedRuns);
+				mergedRuns.clear();
+				columnRuns.add(mergedRun);
+			}
+			
+			if (columnRuns.isEmpty()) {
+				cursors.add(new ColumnCursor(columnIndex, Collections.emptyIterator()));
+			} else {
+				cursors.add(new ColumnCursor(columnIndex, this.openRun(columnRuns.get(0))));
+			}
+		}
+		return cursors;
+	}
+
+	private File mergeRuns(List<File> runs) throws AlgorithmExecutionException {
+		// K-way merge of the sorted runs of a column, in which values contained in several runs are only written once
+		List<SortedRunReader> runReaders = new ArrayList<>(runs.size());
+		PriorityQueue<ColumnCursor> cursors = new PriorityQueue<>(runs.size());
+		for (File run : runs) {
+			SortedRunReader runReader = this.openRun(run);
+			runReaders.add(runReader);
+			cursors.add(new ColumnCursor(runReaders.size() - 1, runReader));
+		}
+
+		File mergedRun = this.writeRun(new DistinctValueIterator(cursors));
+
+		for (int i = 0; i < runs.size(); i++) {
+			this.close(runReaders.get(i));
+			this.delete(runs.get(i));
+		}
+		return mergedRun;
+	}
+
+	private File writeRun(Iterator<String> sortedValues) throws AlgorithmExecutionException {
+		File file = this.createTempFile();
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			while (sortedValues.hasNext()) {
+				String value = sortedValues.next();
+				output.writeInt(value.length());
+				output.writeChars(value);
+			}
+		} catch (IOException e) {
+			throw new AlgorithmExecutionException("Could not write sorted values to " + file, e);
+		}
+		return file;
+	}
+
+	private SortedRunReader openRun(File file) throws AlgorithmExecutionException {
+		try {
+			SortedRunReader reader = new SortedRunReader(file);
+			this.readers.add(reader);
+			return reader;
+		} catch (IOException e) {
+			throw new AlgorithmExecutionException("Could not read sorted values from " + file, e);
+		}
+	}
+
+	private File createTempFile() throws AlgorithmExecutionException {
+		// Run files are deleted by close() in either case
+		File file;
+		if (this.tempFileGenerator != null) {
+			file = this.tempFileGenerator.getTemporaryFile();
+		} else {
+			try {
+				file = File.createTempFile("spidey_run", ".bin");
+			} catch (IOException e) {
+				throw new FileCreationException("Could not create a temporary file for sorted values", e);
+			}
+		}
+		this.files.add(file);
+		return file;
+	}
+
+	private void close(SortedRunReader reader) {
+		try {
+			reader.close();
+		} catch (IOException e) {
+			// Nothing was written, so there is nothing to lose
+		}
+		this.readers.remove(reader);
+	}
+
+	private void delete(File file) {
+		if (!file.delete()) {
+			file.deleteOnExit();
+		}
+		this.files.remove(file);
+	}
+
+	@Override
+	public void close() {
+		for (SortedRunReader reader : new ArrayList<>(this.readers)) {
+			this.close(reader);
+		}
+		for (File file : new ArrayList<>(this.files)) {
+			this.delete(file);
+		}
+	}
+
+	private static class DistinctValueIterator implements Iterator<String> {
+		// Iterates the values of a heap of cursors in order, skipping values that were already returned
+		private final PriorityQueue<ColumnCursor> cursors;
+		private String lastValue = null;
+
+		DistinctValueIterator(PriorityQueue<ColumnCursor> cursors) {
+			this.cursors = cursors;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (!this.cursors.isEmpty() && this.cursors.peek().getValue().equals(this.lastValue)) {
+				this.advance(this.cursors.poll());
+			}
+			return !this.cursors.isEmpty();
+		}
+
+		@Override
+		public String next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			ColumnCursor cursor = this.cursors.poll();
+			this.lastValue = cursor.getValue();
+			this.advance(cursor);
+			return this.lastValue;
+		}
+
+		private void advance(ColumnCursor cursor) {
+			cursor.advance();
+			if (cursor.hasValue()) {
+				this.cursors.add(cursor);
+			}
+		}
+	}
+}
@@ -4,19 +4,29 @@ import java.util.ArrayList;
 
 import de.metanome.algorithm_integration.AlgorithmConfigurationException;
 import de.metanome.algorithm_integration.AlgorithmExecutionException;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
+import de.metanome.algorithm_integration.algorithm_types.BooleanParameterAlgorithm;
 import de.metanome.algorithm_integration.algorithm_types.InclusionDependencyAlgorithm;
+import de.metanome.algorithm_integration.algorithm_types.IntegerParameterAlgorithm;
 import de.metanome.algorithm_integration.algorithm_types.RelationalInputParameterAlgorithm;
+import de.metanome.algorithm_integration.algorithm_types.StringParameterAlgorithm;
+import de.metanome.algorithm_integration.algorithm_types.TempFileAlgorithm;
 import de.metanome.algorithm_integration.configuration.ConfigurationRequirement;
+import de.metanome.algorithm_integration.configuration.ConfigurationRequirementBoolean;
+import de.metanome.algorithm_integration.configuration.ConfigurationRequirementInteger;
 import de.metanome.algorithm_integration.configuration.ConfigurationRequirementRelationalInput;
+import de.metanome.algorithm_integration.configuration.ConfigurationRequirementString;
 import de.metanome.algorithm_integration.input.RelationalInputGenerator;
 import de.metanome.algorithm_integration.result_receiver.InclusionDependencyResultReceiver;
 
 public class Spidey extends SpideyAlgorithm 							// Separating the algorithm implementation and the Metanome interface implementation is good practice
 						  implements InclusionDependencyAlgorithm, 		// Defines the type of the algorithm, i.e., the result type, for instance, FunctionalDependencyAlgorithm or InclusionDependencyAlgorithm; implementing multiple types is possible
-						  			 RelationalInputParameterAlgorithm {	// Defines the input type of the algorithm; relational input is any relational input from files or databases; more specific input specifications are possible
+						  			 RelationalInputParameterAlgorithm,	// Defines the input type of the algorithm; relational input is any relational input from files or databases; more specific input specifications are possible
+						  			 StringParameterAlgorithm, IntegerParameterAlgorithm, BooleanParameterAlgorithm,	// Types of configuration parameters this algorithm requires
+						  			 TempFileAlgorithm {				// Lets Metanome provide temporary files for the sorted values of large inputs
 
 	public enum Identifier {
-		INPUT_GENERATOR
+		INPUT_GENERATOR, MEMORY_BUDGET, NUMBER_OF_THREADS, MAX_ARITY, USE_FINGERPRINTS, VERIFY_FINGERPRINTS, COVERAGE_THRESHOLD
 	};
 
 	@Override
@@ -35,9 +45,80 @@ public class Spidey extends SpideyAlgorithm 							// Separating the algorithm i
 		conf.add(new ConfigurationRequirementRelationalInput(Spidey.Identifier.INPUT_GENERATOR.name(),
 			ConfigurationRequirement.ARBITRARY_NUMBER_OF_VALUES));
 		
+		// Memory budget of the distinct values in MB, larger inputs are sorted in temporary files
+		ConfigurationRequirementInteger memoryBudget = new ConfigurationRequirementInteger(Spidey.Identifier.MEMORY_BUDGET.name());
+		memoryBudget.setDefaultValues(new Integer[] { this.memoryBudget });
+		memoryBudget.setRequired(true);
+		conf.add(memoryBudget);
+		
+		// Number of threads reading and sorting the relations, one per relation at most
+		ConfigurationRequirementInteger numberOfThreads = new ConfigurationRequirementInteger(Spidey.Identifier.NUMBER_OF_THREADS.name());
+		numberOfThreads.setDefaultValues(new Integer[] { this.numberOfThreads });
+		numberOfThreads.setRequired(true);
+		conf.add(numberOfThreads);
+		
+		// Maximum number of columns per side of an IND, 1 for unary INDs only and 0 for no limit
+		ConfigurationRequirementInteger maxArity = new ConfigurationRequirementInteger(Spidey.Identifier.MAX_ARITY.name());
+		maxArity.setDefaultValues(new Integer[] { this.maxArity });
+		maxArity.setRequired(true);
+		conf.add(maxArity);
+		
+		// Whether values are compared by 64 bit fingerprints instead of their actual values
+		ConfigurationRequirementBoolean useFingerprints = new ConfigurationRequirementBoolean(Spidey.Identifier.USE_FINGERPRINTS.name());
+		useFingerprints.setDefaultValues(new Boolean[] { this.useFingerprints });
+		useFingerprints.setRequired(true);
+		conf.add(useFingerprints);
+		
+		// Whether INDs found by fingerprints are validated by their actual values, which rules out fingerprint collisions
+		ConfigurationRequirementBoolean verifyFingerprints = new ConfigurationRequirementBoolean(Spidey.Identifier.VERIFY_FINGERPRINTS.name());
+		verifyFingerprints.setDefaultValues(new Boolean[] { this.verifyFingerprints });
+		verifyFingerprints.setRequired(true);
+		conf.add(verifyFingerprints);
+		
+		// Minimum share of the dependent values contained in the referenced values, 1 for exact INDs;
+		// below 1, n-ary INDs are only searched among combinations of partial INDs, so some may be missed
+		ConfigurationRequirementString coverageThreshold = new ConfigurationRequirementString(Spidey.Identifier.COVERAGE_THRESHOLD.name());
+		coverageThreshold.setDefaultValues(new String[] { Double.toString(this.coverageThreshold) });
+		coverageThreshold.setRequired(true);
+		conf.add(coverageThreshold);
+		
 		return conf;
 	}
 
+	@Override
+	public void setStringConfigurationValue(String identifier, String... values) throws AlgorithmConfigurationException {
+		if (Spidey.Identifier.COVERAGE_THRESHOLD.name().equals(identifier)) {
+			try {
+				this.coverageThreshold = Double.parseDouble(values[0].trim());
+			} catch (NumberFormatException e) {
+				throw new AlgorithmConfigurationException("The coverage threshold must be a number: " + values[0]);
+			}
+			if (this.coverageThreshold < 0 || this.coverageThreshold > 1)
+				throw new AlgorithmConfigurationException("The coverage threshold must be between 0 and 1: " + values[0]);
+		} else {
+			this.handleUnknownConfiguration(identifier, values);
+		}
+	}
+
+	@Override
+	public void setIntegerConfigurationValue(String identifier, Integer... values) throws AlgorithmConfigurationException {
+		if (Spidey.Identifier.MEMORY_BUDGET.name().equals(identifier)) {
+			if (values[0] < 0)
+				throw new AlgorithmConfigurationException("The memory budget must not be negative: " + values[0]);
+			this.memoryBudget = values[0];
+		} else if (Spidey.Identifier.NUMBER_OF_THREADS.name().equals(identifier)) {
+			if (values[0] < 1)
+				throw new AlgorithmConfigurationException("The number of threads must be positive: " + values[0]);
+			this.numberOfThreads = values[0];
+		} else if (Spidey.Identifier.MAX_ARITY.name().equals(identifier)) {
+			if (values[0] < 0)
+				throw new AlgorithmConfigurationException("The maximum arity must not be negative: " + values[0]);
+			this.maxArity = values[0];
+		} else {
+			this.handleUnknownConfiguration(identifier, values);
+		}
+	}
+
 	@Override
 	public void setRelationalInputConfigurationValue(String identifier, RelationalInputGenerator... values) throws AlgorithmConfigurationException {
 		if (!Spidey.Identifier.INPUT_GENERATOR.name().equals(identifier))
@@ -45,6 +126,22 @@ public class Spidey extends SpideyAlgorithm 							// Separating the algorithm i
 		this.inputGenerators = values;
 	}
 
+	@Override
+	public void setBooleanConfigurationValue(String identifier, Boolean... values) throws AlgorithmConfigurationException {
+		if (Spidey.Identifier.USE_FINGERPRINTS.name().equals(identifier)) {
+			this.useFingerprints = values[0];
+		} else if (Spidey.Identifier.VERIFY_FINGERPRINTS.name().equals(identifier)) {
+			this.verifyFingerprints = values[0];
+		} else {
+			this.handleUnknownConfiguration(identifier, values);
+		}
+	}
+
+	@Override
+	public void setTempFileGenerator(FileGenerator tempFileGenerator) {
+		this.tempFileGenerator = tempFileGenerator;
+	}
+
 	@Override
 	public void setResultReceiver(InclusionDependencyResultReceiver resultReceiver) {
 		this.resultReceiver = resultReceiver;
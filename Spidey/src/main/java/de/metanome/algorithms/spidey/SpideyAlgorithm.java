@@ -1,13 +1,19 @@
 package de.metanome.algorithms.spidey;
 
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -15,8 +21,8 @@ import de.metanome.algorithm_integration.AlgorithmConfigurationException;
 import de.metanome.algorithm_integration.AlgorithmExecutionException;
 import de.metanome.algorithm_integration.ColumnIdentifier;
 import de.metanome.algorithm_integration.ColumnPermutation;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
 import de.metanome.algorithm_integration.input.InputGenerationException;
-import de.metanome.algorithm_integration.input.InputIterationException;
 import de.metanome.algorithm_integration.input.RelationalInput;
 import de.metanome.algorithm_integration.input.RelationalInputGenerator;
 import de.metanome.algorithm_integration.result_receiver.ColumnNameMismatchException;
@@ -28,10 +34,18 @@ public class SpideyAlgorithm {
 
 	protected RelationalInputGenerator[] inputGenerators = null;
 	protected InclusionDependencyResultReceiver resultReceiver = null;
+	protected FileGenerator tempFileGenerator = null;
+	protected int memoryBudget = (int) (Runtime.getRuntime().maxMemory() / 2 / 1024 / 1024);
+	protected int numberOfThreads = 1;
+	protected int maxArity = 1;
+	protected boolean useFingerprints = false;
+	protected boolean verifyFingerprints = true;
+	protected double coverageThreshold = 1;
 
 	protected List<RelationalInput> inputs;
 	protected List<String> relationNames;
 	protected List<List<String>> columnNames;
+	protected int[] columnOffsets;
 
 	public void execute() throws AlgorithmExecutionException {
 		System.out.println("Starting your friendly neighborhood IND algorithm.");
@@ -63,77 +77,400 @@ public class SpideyAlgorithm {
 			this.relationNames.add(input.relationName());
 			this.columnNames.add(input.columnNames());
 		}
+		
+		// Global index of the first column of each relation, the last entry is the total number of columns
+		this.columnOffsets = new int[this.inputs.size() + 1];
+		for (int i = 0; i < this.inputs.size(); i++) {
+			this.columnOffsets[i + 1] = this.columnOffsets[i] + this.columnNames.get(i).size();
+		}
 	}
 
-	protected List<InclusionDependency> generateResults() throws InputIterationException {
-		// Initialize priority queues and refs for columns
-		List<PriorityQueue<String>> sortedColumns = new ArrayList<PriorityQueue<String>>();
-		List<Set<Integer>> refList = new ArrayList<Set<Integer>>();		
-		int globalColumnsCount = IntStream.range(0, this.relationNames.size()).map(i -> this.columnNames.get(i).size()).sum();
-		Set<Integer> columnIndices = IntStream.range(0, globalColumnsCount).boxed().collect(Collectors.toSet());
+	protected List<InclusionDependency> generateResults() throws AlgorithmExecutionException {
+		// Unary INDs: each column is an attribute on its own, and each pair of columns is a candidate
+		int globalColumnsCount = this.columnOffsets[this.inputs.size()];
+		List<int[]> columns = new ArrayList<int[]>(globalColumnsCount);
 		for (int i = 0; i < globalColumnsCount; i++) {
-			sortedColumns.add(new PriorityQueue<String>());
-			int columnIndex = i; // otherwise there will be scope problems
-			refList.add(columnIndices.stream().filter(item -> item != columnIndex).collect(Collectors.toSet()));
+			columns.add(new int[] { i });
 		}
-
-		// Fill priority queues
-		for(int i = 0; i < this.inputs.size(); i++) {
-			RelationalInput input = this.inputs.get(i);
-			while (input.hasNext()) {
-				List<String> row = input.next();
-				for (int j = 0; j < row.size(); j++) {
-					String currentValue = row.get(j);
-					PriorityQueue<String> currentSortedColumn = sortedColumns.get(this.getGlobalColumnIndex(i, j));
-					if (!currentSortedColumn.contains(currentValue) && currentValue != null) {
-						currentSortedColumn.add(currentValue);
+		CandidateMatrix refs = this.validate(columns, CandidateMatrix.allPairs(globalColumnsCount), this.inputs, this.useFingerprints);
+		
+		List<IndCandidate> inds = new ArrayList<IndCandidate>();
+		for (int dependantIndex = 0; dependantIndex < globalColumnsCount; dependantIndex++) {
+			for(int referencedIndex: refs.getReferences(dependantIndex)) {
+				inds.add(new IndCandidate(new int[] { dependantIndex }, new int[] { referencedIndex }));
+			}
+		}
+		if (this.useFingerprints && this.verifyFingerprints) {
+			inds = this.validateCandidates(inds, false);
+		}
+		
+		// N-ary INDs: candidates of the next arity are generated from the INDs found so far (like in MIND),
+		// and validated by merging the sorted distinct value combinations of their attributes
+		List<IndCandidate> allInds = new ArrayList<IndCandidate>(inds);
+		for (int arity = 2; (this.maxArity == 0 || arity <= this.maxArity) && !inds.isEmpty(); arity++) {
+			inds = this.validateCandidates(this.generateCandidates(inds));
+			allInds.addAll(inds);
+		}
+		
+		// Convert refs to list of inclusion dependencies
+		List<InclusionDependency> results = new ArrayList<InclusionDependency>();
+		for (IndCandidate ind : allInds) {
+			ColumnPermutation dependant = this.createColumnPermutation(Arrays.stream(ind.getDependant()).boxed().toArray(Integer[]::new));
+			ColumnPermutation referenced = this.createColumnPermutation(Arrays.stream(ind.getReferenced()).boxed().toArray(Integer[]::new));
+			results.add(new InclusionDependency(dependant, referenced));
+		}
+		
+		return results;
+	}
+	
+	private List<IndCandidate> generateCandidates(List<IndCandidate> inds) {
+		// Two INDs of arity k that share their first k-1 column pairs are combined to a candidate of arity k+1.
+		// Dependent columns are kept in ascending order, all columns of a candidate are distinct, and each
+		// side refers to a single relation. Like in apriori, all projections to k column pairs must be INDs.
+		// Partial INDs are not closed under projection, so for them this only finds a subset of the n-ary INDs.
+		Set<IndCandidate> validInds = new HashSet<IndCandidate>(inds);
+		Map<IndCandidate, List<IndCandidate>> indsByPrefix = new LinkedHashMap<IndCandidate, List<IndCandidate>>();
+		for (IndCandidate ind : inds) {
+			indsByPrefix.computeIfAbsent(ind.getPrefix(), prefix -> new ArrayList<IndCandidate>()).add(ind);
+		}
+		
+		List<IndCandidate> candidates = new ArrayList<IndCandidate>();
+		for (List<IndCandidate> group : indsByPrefix.values()) {
+			for (IndCandidate first : group) {
+				int arity = first.getArity();
+				int firstDependant = first.getDependant()[arity - 1];
+				int firstReferenced = first.getReferenced()[arity - 1];
+				for (IndCandidate second : group) {
+					int secondDependant = second.getDependant()[arity - 1];
+					int secondReferenced = second.getReferenced()[arity - 1];
+					if (firstDependant >= secondDependant || first.containsColumn(secondDependant) || first.containsColumn(secondReferenced)
+							|| this.getRelationIndex(firstDependant) != this.getRelationIndex(secondDependant)
+							|| this.getRelationIndex(firstReferenced) != this.getRelationIndex(secondReferenced)) {
+						continue;
+					}
+					
+					IndCandidate candidate = first.extend(secondDependant, secondReferenced);
+					boolean isSupported = true;
+					for (int position = 0; position < arity - 1 && isSupported; position++) {
+						isSupported = validInds.contains(candidate.without(position));
+					}
+					if (isSupported) {
+						candidates.add(candidate);
 					}
 				}
 			}
 		}
+		return candidates;
+	}
+	
+	private List<IndCandidate> validateCandidates(List<IndCandidate> candidates) throws AlgorithmExecutionException {
+		// Fingerprints might collide, so INDs found by them are validated again by their actual values if requested.
+		// The second pass only reads the attributes of these INDs, whose number is usually much smaller.
+		List<IndCandidate> inds = this.validateCandidates(candidates, this.useFingerprints);
+		if (this.useFingerprints && this.verifyFingerprints) {
+			inds = this.validateCandidates(inds, false);
+		}
+		return inds;
+	}
+	
+	private List<IndCandidate> validateCandidates(List<IndCandidate> candidates, boolean useFingerprints) throws AlgorithmExecutionException {
+		if (candidates.isEmpty()) {
+			return candidates;
+		}
+		
+		// The attributes are the column combinations of the candidates, grouped by relation
+		List<Map<List<Integer>, int[]>> attributesByRelation = new ArrayList<Map<List<Integer>, int[]>>();
+		for (int i = 0; i < this.inputs.size(); i++) {
+			attributesByRelation.add(new LinkedHashMap<List<Integer>, int[]>());
+		}
+		for (IndCandidate candidate : candidates) {
+			for (int[] columnIndices : new int[][] { candidate.getDependant(), candidate.getReferenced() }) {
+				attributesByRelation.get(this.getRelationIndex(columnIndices[0]))
+					.putIfAbsent(Arrays.stream(columnIndices).boxed().collect(Collectors.toList()), columnIndices);
+			}
+		}
+		List<int[]> attributes = new ArrayList<int[]>();
+		Map<List<Integer>, Integer> attributeIndices = new HashMap<List<Integer>, Integer>();
+		for (Map<List<Integer>, int[]> relationAttributes : attributesByRelation) {
+			for (Map.Entry<List<Integer>, int[]> attribute : relationAttributes.entrySet()) {
+				attributeIndices.put(attribute.getKey(), attributes.size());
+				attributes.add(attribute.getValue());
+			}
+		}
+		
+		CandidateMatrix refs = new CandidateMatrix(attributes.size());
+		for (IndCandidate candidate : candidates) {
+			refs.add(this.getAttributeIndex(attributeIndices, candidate.getDependant()), this.getAttributeIndex(attributeIndices, candidate.getReferenced()));
+		}
+		
+		// Each pass needs to read the involved relations again
+		List<RelationalInput> inputs = new ArrayList<RelationalInput>(this.inputs.size());
+		try {
+			for (int i = 0; i < this.inputs.size(); i++) {
+				inputs.add(attributesByRelation.get(i).isEmpty() ? null : this.inputGenerators[i].generateNewCopy());
+			}
+			this.validate(attributes, refs, inputs, useFingerprints);
+		} finally {
+			this.close(inputs);
+		}
 		
-		// While there are values left, get the next smallest value
-		// All columns containing this value are added to the set attributesToProcess
-		// After that, all refs are intersected with the attributes to process and the priority queues are updated
-		int remainingQueues = sortedColumns.size();
-		while (remainingQueues > 1) {
-			String minValue = sortedColumns.stream()
-				.map(column -> column.peek())
-				.filter(value -> value != null)
-				.min(String.CASE_INSENSITIVE_ORDER)
-				.get();
-			Set<Integer> attributesToProcess = new HashSet<Integer>();
-			for (Integer columnIndex : columnIndices) {
-				PriorityQueue<String> current = sortedColumns.get(columnIndex);
-				if (!current.isEmpty() && current.peek().equals(minValue)) {
-					attributesToProcess.add(columnIndex);
-					current.remove();
-					if (current.isEmpty()) {
-						remainingQueues--;
-					};
+		return candidates.stream()
+			.filter(candidate -> refs.contains(this.getAttributeIndex(attributeIndices, candidate.getDependant()), this.getAttributeIndex(attributeIndices, candidate.getReferenced())))
+			.collect(Collectors.toList());
+	}
+	
+	private int getAttributeIndex(Map<List<Integer>, Integer> attributeIndices, int[] columnIndices) {
+		return attributeIndices.get(Arrays.stream(columnIndices).boxed().collect(Collectors.toList()));
+	}
+	
+	private void close(List<RelationalInput> inputs) throws AlgorithmExecutionException {
+		for (RelationalInput input : inputs) {
+			if (input != null) {
+				try {
+					input.close();
+				} catch (Exception e) {
+					throw new AlgorithmExecutionException("Could not close relation " + input.relationName(), e);
 				}
 			}
-			
-			for(int columnIndex: attributesToProcess) {
-				refList.get(columnIndex).retainAll(attributesToProcess);
+		}
+	}
+	
+	private CandidateMatrix validate(List<int[]> attributes, CandidateMatrix refs, List<RelationalInput> inputs, boolean useFingerprints) throws AlgorithmExecutionException {
+		// The attributes are grouped by relation, so each relation adds its values to a range of them
+		int[] attributeOffsets = new int[this.inputs.size() + 1];
+		for (int[] attribute : attributes) {
+			attributeOffsets[this.getRelationIndex(attribute[0]) + 1]++;
+		}
+		for (int i = 0; i < this.inputs.size(); i++) {
+			attributeOffsets[i + 1] += attributeOffsets[i];
+		}
+		
+		// Fingerprints are kept in sorted arrays of longs, which are merged by a heap keyed by their current fingerprint
+		if (useFingerprints) {
+			FingerprintStore fingerprintStore = new FingerprintStore(attributes.size());
+			this.loadRelations(inputs, attributeOffsets, i -> this.loadFingerprints(fingerprintStore, inputs.get(i), i,
+				attributes.subList(attributeOffsets[i], attributeOffsets[i + 1]), attributeOffsets[i]));
+			this.pruneCandidates(refs, (dependantIndex, referencedIndex) -> fingerprintStore.mayBeIncludedIn(dependantIndex, referencedIndex, this.coverageThreshold));
+			this.mergeColumns(fingerprintStore.createHeap(refs::isActive), refs, fingerprintStore.getDistinctCounts());
+			return refs;
+		}
+		
+		// Sorted distinct values of each attribute, which are traversed by a cursor during the merge.
+		// The heap only holds cursors of attributes with values left, ordered by their current value.
+		// The values are streamed from temporary files if they exceed the memory budget.
+		try (SortedValueStore valueStore = new SortedValueStore(attributes.size(), (long) this.memoryBudget * 1024 * 1024, this.tempFileGenerator)) {
+			this.loadRelations(inputs, attributeOffsets, i -> this.loadValues(valueStore, inputs.get(i), i,
+				attributes.subList(attributeOffsets[i], attributeOffsets[i + 1]), attributeOffsets[i]));
+			this.pruneCandidates(refs, (dependantIndex, referencedIndex) -> valueStore.getStatistics(dependantIndex)
+				.mayBeIncludedIn(valueStore.getStatistics(referencedIndex), valueStore.isDistinctCountExact(), this.coverageThreshold));
+			// If the number of distinct values is not known in advance, it is counted during the merge
+			long[] distinctCounts = valueStore.isDistinctCountExact()
+				? IntStream.range(0, attributes.size()).mapToLong(i -> valueStore.getStatistics(i).getDistinctCount()).toArray()
+				: null;
+			this.mergeColumns(new ColumnCursorHeap(valueStore.createCursors(refs::isActive)), refs, distinctCounts);
+		} catch (UncheckedIOException e) {
+			// Cursors over run files can only fail with unchecked exceptions, whose message names the file
+			throw new AlgorithmExecutionException(e.getMessage(), e.getCause());
+		}
+		return refs;
+	}
+	
+	private void pruneCandidates(CandidateMatrix refs, BiPredicate<Integer, Integer> mayBeIncluded) {
+		// Removes candidates that the statistics of their attributes already rule out, so that
+		// attributes without any candidates left are not merged
+		for (int dependantIndex = 0; dependantIndex < refs.getNumberOfColumns(); dependantIndex++) {
+			for (int referencedIndex : refs.getReferences(dependantIndex)) {
+				if (!mayBeIncluded.test(dependantIndex, referencedIndex)) {
+					refs.remove(dependantIndex, referencedIndex);
+				}
 			}
 		}
+	}
+	
+	private void loadRelations(List<RelationalInput> inputs, int[] attributeOffsets, RelationLoader loader) throws AlgorithmExecutionException {
+		// Relations are read in parallel, one task per relation, which also sorts the relation's values
+		List<Integer> relationIndices = IntStream.range(0, inputs.size())
+			.filter(i -> attributeOffsets[i + 1] > attributeOffsets[i])
+			.boxed()
+			.collect(Collectors.toList());
+		if (this.numberOfThreads == 1 || relationIndices.size() <= 1) {
+			for(int i : relationIndices) {
+				loader.load(i);
+			}
+			return;
+		}
 		
-		// Convert refs to list of inclusion dependencies
-		List<InclusionDependency> results = new ArrayList<InclusionDependency>();
-		for (int dependantIndex: columnIndices) {
-			for(int referencedIndex: refList.get(dependantIndex)) {
-				ColumnPermutation dependant = this.createColumnPermutation(dependantIndex);
-				ColumnPermutation referenced = this.createColumnPermutation(referencedIndex);
-				results.add(new InclusionDependency(dependant, referenced));
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.numberOfThreads, relationIndices.size()));
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for(int i : relationIndices) {
+				futures.add(executor.submit(() -> {
+					loader.load(i);
+					return null;
+				}));
 			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AlgorithmExecutionException("Loading the relations was interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof AlgorithmExecutionException)
+				throw (AlgorithmExecutionException) e.getCause();
+			throw new AlgorithmExecutionException("Loading the relations failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	private interface RelationLoader {
+		void load(int relationIndex) throws AlgorithmExecutionException;
+	}
+	
+	private void loadValues(SortedValueStore valueStore, RelationalInput input, int inputIndex, List<int[]> attributes, int offset) throws AlgorithmExecutionException {
+		// Rows can be added as they are if the attributes are exactly the relation's columns, otherwise the values of each attribute are combined
+		int columnOffset = this.columnOffsets[inputIndex];
+		boolean isProjected = attributes.size() != this.columnNames.get(inputIndex).size();
+		for (int i = 0; i < attributes.size() && !isProjected; i++) {
+			isProjected = attributes.get(i).length != 1 || attributes.get(i)[0] != columnOffset + i;
 		}
 		
-		return results;
+		while (input.hasNext()) {
+			List<String> row = input.next();
+			if (isProjected) {
+				List<String> attributeValues = new ArrayList<String>(attributes.size());
+				for (int[] attribute : attributes) {
+					attributeValues.add(this.combineValues(row, attribute, columnOffset));
+				}
+				row = attributeValues;
+			}
+			valueStore.addRow(offset, row);
+		}
+		valueStore.sortColumns(offset, attributes.size());
+	}
+	
+	private void loadFingerprints(FingerprintStore fingerprintStore, RelationalInput input, int inputIndex, List<int[]> attributes, int offset) throws AlgorithmExecutionException {
+		int columnOffset = this.columnOffsets[inputIndex];
+		while (input.hasNext()) {
+			List<String> row = input.next();
+			for (int i = 0; i < attributes.size(); i++) {
+				String value = this.combineValues(row, attributes.get(i), columnOffset);
+				if (value != null) {
+					fingerprintStore.add(offset + i, createFingerprint(value));
+				}
+			}
+		}
+		fingerprintStore.sortColumns(offset, attributes.size());
+	}
+	
+	private String combineValues(List<String> row, int[] columnIndices, int columnOffset) {
+		// Each value is prefixed by its length, so that different combinations never yield the same string.
+		// Like for single columns, combinations with NULLs are ignored.
+		if (columnIndices.length == 1) {
+			return row.get(columnIndices[0] - columnOffset);
+		}
+		StringBuilder builder = new StringBuilder();
+		for (int columnIndex : columnIndices) {
+			String value = row.get(columnIndex - columnOffset);
+			if (value == null) {
+				return null;
+			}
+			builder.append(value.length()).append(':').append(value);
+		}
+		return builder.toString();
 	}
 	
-	private int getGlobalColumnIndex(int inputIndex, int columnIndex) {
-		return IntStream.range(0, inputIndex).map(i -> this.inputs.get(i).columnNames().size()).sum() + columnIndex;
+	private static long createFingerprint(String value) {
+		// 64 bit FNV-1a hash of the chars with a final bit mix
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+	
+	private int getRelationIndex(int globalColumnIndex) {
+		int relationIndex = Arrays.binarySearch(this.columnOffsets, globalColumnIndex);
+		if (relationIndex < 0) {
+			return -relationIndex - 2;
+		}
+		// Skip relations without columns that start at the same offset
+		while (this.columnOffsets[relationIndex + 1] == globalColumnIndex) {
+			relationIndex++;
+		}
+		return relationIndex;
+	}
+	
+	private void mergeColumns(ColumnHeap heap, CandidateMatrix refs, long[] distinctCounts) {
+		// While there are values left, pop all columns at the smallest value
+		// They are collected in the bitset attributesToProcess, so that only their refs are intersected with it
+		// After that, the columns are advanced and pushed back, unless they are exhausted or not part of any candidate anymore
+		int[] minColumns = new int[refs.getNumberOfColumns()];
+		long[] attributesToProcess = CandidateMatrix.createBitset(refs.getNumberOfColumns());
+		
+		// For partial INDs, refs are only dropped once they miss too many values of the dependent column.
+		// If the number of distinct values is not known in advance (distinctCounts is null), they are counted and checked in the end.
+		boolean isPartial = this.coverageThreshold < 1;
+		long[] valueCounts = new long[refs.getNumberOfColumns()];
+		long[] maxMissingCounts = new long[refs.getNumberOfColumns()];
+		for (int columnIndex = 0; isPartial && columnIndex < refs.getNumberOfColumns(); columnIndex++) {
+			maxMissingCounts[columnIndex] = distinctCounts != null
+				? this.getMaxMissingCount(distinctCounts[columnIndex])
+				: Long.MAX_VALUE;
+		}
+		
+		while (!heap.isEmpty()) {
+			int numberOfMinColumns = heap.pollMinimum(minColumns);
+			for (int i = 0; i < numberOfMinColumns; i++) {
+				CandidateMatrix.set(attributesToProcess, minColumns[i]);
+			}
+			
+			for (int i = 0; i < numberOfMinColumns; i++) {
+				int columnIndex = minColumns[i];
+				if (!refs.hasReferences(columnIndex)) {
+					continue;
+				}
+				if (isPartial) {
+					valueCounts[columnIndex]++;
+					refs.countMissing(columnIndex, attributesToProcess, maxMissingCounts[columnIndex]);
+				} else {
+					refs.retainAll(columnIndex, attributesToProcess);
+				}
+			}
+			
+			for (int i = 0; i < numberOfMinColumns; i++) {
+				CandidateMatrix.clear(attributesToProcess, minColumns[i]);
+				if (refs.isActive(minColumns[i])) {
+					heap.advance(minColumns[i]);
+				}
+			}
+		}
+		
+		for (int dependantIndex = 0; isPartial && dependantIndex < refs.getNumberOfColumns(); dependantIndex++) {
+			long maxMissingCount = this.getMaxMissingCount(valueCounts[dependantIndex]);
+			for (int referencedIndex : refs.getReferences(dependantIndex)) {
+				if (refs.getMissingCount(dependantIndex, referencedIndex) > maxMissingCount) {
+					refs.remove(dependantIndex, referencedIndex);
+				}
+			}
+		}
+	}
+	
+	private long getMaxMissingCount(long distinctCount) {
+		// Largest number of missing values that keeps the share of included values at the coverage threshold
+		long maxMissingCount = (long) Math.floor((1 - this.coverageThreshold) * distinctCount);
+		while (maxMissingCount > 0 && (double) (distinctCount - maxMissingCount) / distinctCount < this.coverageThreshold) {
+			maxMissingCount--;
+		}
+		while (maxMissingCount < distinctCount && (double) (distinctCount - maxMissingCount - 1) / distinctCount >= this.coverageThreshold) {
+			maxMissingCount++;
+		}
+		return maxMissingCount;
 	}
 	
 	private String[] getRelationColumnName(int globalColumnIndex) {
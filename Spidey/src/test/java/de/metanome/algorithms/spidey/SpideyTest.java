@@ -1,13 +1,73 @@
 package de.metanome.algorithms.spidey;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import de.metanome.algorithm_integration.AlgorithmExecutionException;
+import de.metanome.algorithm_integration.ColumnIdentifier;
+import de.metanome.algorithm_integration.ColumnPermutation;
+import de.metanome.algorithm_integration.algorithm_execution.FileCreationException;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.algorithm_integration.input.RelationalInputGenerator;
+import de.metanome.algorithm_integration.result_receiver.InclusionDependencyResultReceiver;
+import de.metanome.algorithm_integration.results.InclusionDependency;
+
 public class SpideyTest {
 
+  // Unary INDs: A [= C, A [= F and B [= D
+  private static final FixedInputGenerator FIRST_RELATION = new FixedInputGenerator("R1", Arrays.asList("A", "B", "F"),
+    new String[][] {
+      { "1", "x", "1" },
+      { "2", "y", "2" },
+      { "3", "x", "3" },
+      { "3", "x", "7" }
+    });
+  private static final FixedInputGenerator SECOND_RELATION = new FixedInputGenerator("R2", Arrays.asList("C", "D", "E"),
+    new String[][] {
+      { "1", "x", "1" },
+      { "2", "y", "5" },
+      { "3", "x", "9" },
+      { "4", "z", "1" }
+    });
+
+  // Ternary IND: (G, H, I) [= (J, K, L), with all of its unary and binary projections, whereas the last row of R4
+  // rules out the INDs in the opposite direction except for the unary ones
+  private static final FixedInputGenerator THIRD_RELATION = new FixedInputGenerator("R3", Arrays.asList("G", "H", "I"),
+    new String[][] {
+      { "1", "a", "x" },
+      { "2", "b", "y" },
+      { "3", "c", "z" }
+    });
+  private static final FixedInputGenerator FOURTH_RELATION = new FixedInputGenerator("R4", Arrays.asList("J", "K", "L"),
+    new String[][] {
+      { "1", "a", "x" },
+      { "2", "b", "y" },
+      { "3", "c", "z" },
+      { "1", "b", "z" }
+    });
+
+  private static final int NUMBER_OF_REPETITIONS = 20;
+
+  private Spidey algorithm;
+
   @Before
   public void setUp() throws Exception {
+    this.algorithm = new Spidey();
   }
 
   @After
@@ -19,7 +79,136 @@ public class SpideyTest {
   }
 
   @Test
-  public void testExecute() {
+  public void testExecute() throws AlgorithmExecutionException {
+    Set<InclusionDependency> expectedResults = new HashSet<>(Arrays.asList(
+        createInd(Arrays.asList("A"), Arrays.asList("C")),
+        createInd(Arrays.asList("A"), Arrays.asList("F")),
+        createInd(Arrays.asList("B"), Arrays.asList("D"))));
+    assertEquals(expectedResults, this.execute(this.algorithm));
+  }
+
+  @Test
+  public void testExecuteWithSpilling() throws Exception {
+    // Without any budget, the values of each column are sorted in temporary run files
+    Set<InclusionDependency> expectedResults = this.execute(new Spidey());
+    try (TempFileCollector tempFileGenerator = new TempFileCollector()) {
+      this.algorithm.setIntegerConfigurationValue(Spidey.Identifier.MEMORY_BUDGET.name(), 0);
+      this.algorithm.setTempFileGenerator(tempFileGenerator);
+      assertEquals(expectedResults, this.execute(this.algorithm));
+      assertFalse(tempFileGenerator.files.isEmpty());
+    }
+  }
+
+  @Test
+  public void testExecuteInParallel() throws AlgorithmExecutionException {
+    // With eight relations, there are more relations to read and sort than threads.
+    // The run is repeated, so that races on the shared value store get a chance to show up.
+    FixedInputGenerator[] inputGenerators = createRandomInputs(8, 6, 40);
+    Set<InclusionDependency> expectedResults = this.execute(new Spidey(), inputGenerators);
+    for (int i = 0; i < NUMBER_OF_REPETITIONS; i++) {
+      Spidey parallelAlgorithm = new Spidey();
+      parallelAlgorithm.setIntegerConfigurationValue(Spidey.Identifier.NUMBER_OF_THREADS.name(), 4);
+      assertEquals(expectedResults, this.execute(parallelAlgorithm, inputGenerators));
+    }
+  }
+
+  @Test
+  public void testExecuteInParallelWithSpilling() throws Exception {
+    // Relations that are read concurrently write their runs while the others are still adding values
+    FixedInputGenerator[] inputGenerators = createRandomInputs(8, 6, 40);
+    Set<InclusionDependency> expectedResults = this.execute(new Spidey(), inputGenerators);
+    for (int i = 0; i < NUMBER_OF_REPETITIONS; i++) {
+      try (TempFileCollector tempFileGenerator = new TempFileCollector()) {
+        Spidey parallelAlgorithm = new Spidey();
+        parallelAlgorithm.setIntegerConfigurationValue(Spidey.Identifier.NUMBER_OF_THREADS.name(), 4);
+        parallelAlgorithm.setIntegerConfigurationValue(Spidey.Identifier.MEMORY_BUDGET.name(), 0);
+        parallelAlgorithm.setTempFileGenerator(tempFileGenerator);
+        assertEquals(expectedResults, this.execute(parallelAlgorithm, inputGenerators));
+      }
+    }
+  }
+
+  @Test
+  public void testExecuteWithMaxArity() throws AlgorithmExecutionException {
+    // (A, B) [= (C, D) is the only IND that combines two unary INDs
+    Set<InclusionDependency> expectedResults = this.execute(new Spidey());
+    expectedResults.add(createInd(Arrays.asList("A", "B"), Arrays.asList("C", "D")));
+    this.algorithm.setIntegerConfigurationValue(Spidey.Identifier.MAX_ARITY.name(), 2);
+    assertEquals(expectedResults, this.execute(this.algorithm));
+  }
+
+  @Test
+  public void testExecuteWithUnlimitedArity() throws AlgorithmExecutionException {
+    // Up to arity two, the binary projections of the ternary IND are the largest INDs
+    Set<InclusionDependency> binaryResults = new HashSet<>(Arrays.asList(
+        createInd(Arrays.asList("G"), Arrays.asList("J")),
+        createInd(Arrays.asList("H"), Arrays.asList("K")),
+        createInd(Arrays.asList("I"), Arrays.asList("L")),
+        createInd(Arrays.asList("J"), Arrays.asList("G")),
+        createInd(Arrays.asList("K"), Arrays.asList("H")),
+        createInd(Arrays.asList("L"), Arrays.asList("I")),
+        createInd(Arrays.asList("G", "H"), Arrays.asList("J", "K")),
+        createInd(Arrays.asList("G", "I"), Arrays.asList("J", "L")),
+        createInd(Arrays.asList("H", "I"), Arrays.asList("K", "L"))));
+    Spidey binaryAlgorithm = new Spidey();
+    binaryAlgorithm.setIntegerConfigurationValue(Spidey.Identifier.MAX_ARITY.name(), 2);
+    assertEquals(binaryResults, this.execute(binaryAlgorithm, THIRD_RELATION, FOURTH_RELATION));
+
+    // Without a limit, they are contained in the ternary IND, and no IND of arity four is generated from it
+    InclusionDependency ternaryInd = createInd(Arrays.asList("G", "H", "I"), Arrays.asList("J", "K", "L"));
+    this.algorithm.setIntegerConfigurationValue(Spidey.Identifier.MAX_ARITY.name(), 0);
+    Set<InclusionDependency> results = this.execute(this.algorithm, THIRD_RELATION, FOURTH_RELATION);
+    assertTrue(results.contains(ternaryInd));
+    results.remove(ternaryInd);
+    assertEquals(binaryResults, results);
+  }
+
+  @Test
+  public void testExecuteWithFingerprints() throws AlgorithmExecutionException {
+    Set<InclusionDependency> expectedResults = this.execute(new Spidey());
+    this.algorithm.setBooleanConfigurationValue(Spidey.Identifier.USE_FINGERPRINTS.name(), true);
+    assertEquals(expectedResults, this.execute(this.algorithm));
+  }
+
+  @Test
+  public void testExecuteWithUnverifiedFingerprints() throws AlgorithmExecutionException {
+    Set<InclusionDependency> expectedResults = this.execute(new Spidey());
+    this.algorithm.setBooleanConfigurationValue(Spidey.Identifier.USE_FINGERPRINTS.name(), true);
+    this.algorithm.setBooleanConfigurationValue(Spidey.Identifier.VERIFY_FINGERPRINTS.name(), false);
+    assertEquals(expectedResults, this.execute(this.algorithm));
+  }
+
+  @Test
+  public void testExecuteWithFingerprintsInParallel() throws AlgorithmExecutionException {
+    // Forty rows per relation exceed the initial capacity of the fingerprint arrays, so they are deduplicated and grown while loading
+    FixedInputGenerator[] inputGenerators = createRandomInputs(8, 6, 40);
+    Set<InclusionDependency> expectedResults = this.execute(new Spidey(), inputGenerators);
+    for (int i = 0; i < NUMBER_OF_REPETITIONS; i++) {
+      Spidey parallelAlgorithm = new Spidey();
+      parallelAlgorithm.setIntegerConfigurationValue(Spidey.Identifier.NUMBER_OF_THREADS.name(), 4);
+      parallelAlgorithm.setBooleanConfigurationValue(Spidey.Identifier.USE_FINGERPRINTS.name(), true);
+      parallelAlgorithm.setBooleanConfigurationValue(Spidey.Identifier.VERIFY_FINGERPRINTS.name(), false);
+      assertEquals(expectedResults, this.execute(parallelAlgorithm, inputGenerators));
+    }
+  }
+
+  @Test
+  public void testExecuteWithFullCoverage() throws AlgorithmExecutionException {
+    Set<InclusionDependency> expectedResults = this.execute(new Spidey());
+    this.algorithm.setStringConfigurationValue(Spidey.Identifier.COVERAGE_THRESHOLD.name(), "1");
+    assertEquals(expectedResults, this.execute(this.algorithm));
+  }
+
+  @Test
+  public void testExecuteWithCoverageThreshold() throws AlgorithmExecutionException {
+    // C and F share three of their four distinct values with A and with each other
+    Set<InclusionDependency> expectedResults = this.execute(new Spidey());
+    expectedResults.add(createInd(Arrays.asList("C"), Arrays.asList("A")));
+    expectedResults.add(createInd(Arrays.asList("C"), Arrays.asList("F")));
+    expectedResults.add(createInd(Arrays.asList("F"), Arrays.asList("A")));
+    expectedResults.add(createInd(Arrays.asList("F"), Arrays.asList("C")));
+    this.algorithm.setStringConfigurationValue(Spidey.Identifier.COVERAGE_THRESHOLD.name(), "0.75");
+    assertEquals(expectedResults, this.execute(this.algorithm));
   }
 
   @Test
@@ -38,4 +227,149 @@ public class SpideyTest {
   public void testSetResultReceiverUniqueColumnCombinationResultReceiver() {
   }
 
+  private Set<InclusionDependency> execute(Spidey algorithm) throws AlgorithmExecutionException {
+    return this.execute(algorithm, FIRST_RELATION, SECOND_RELATION);
+  }
+
+  private Set<InclusionDependency> execute(Spidey algorithm, FixedInputGenerator... inputGenerators) throws AlgorithmExecutionException {
+    ResultCollector resultReceiver = new ResultCollector();
+    algorithm.setRelationalInputConfigurationValue(Spidey.Identifier.INPUT_GENERATOR.name(), inputGenerators);
+    algorithm.setResultReceiver(resultReceiver);
+    algorithm.execute();
+    return resultReceiver.results;
+  }
+
+  private static FixedInputGenerator[] createRandomInputs(int numberOfRelations, int numberOfColumns, int numberOfRows) {
+    // Columns draw from domains of different sizes, so that columns with small domains are included in those with larger ones
+    Random random = new Random(numberOfRelations * numberOfColumns * numberOfRows);
+    List<String> columnNames = new ArrayList<>();
+    for (int i = 0; i < numberOfColumns; i++) {
+      columnNames.add(String.valueOf((char) ('A' + i)));
+    }
+    FixedInputGenerator[] inputGenerators = new FixedInputGenerator[numberOfRelations];
+    for (int r = 0; r < numberOfRelations; r++) {
+      String[][] rows = new String[numberOfRows][numberOfColumns];
+      for (String[] row : rows) {
+        for (int i = 0; i < numberOfColumns; i++) {
+          row[i] = String.valueOf(random.nextInt(2 + i * 2));
+        }
+      }
+      inputGenerators[r] = new FixedInputGenerator("R" + r, columnNames, rows);
+    }
+    return inputGenerators;
+  }
+
+  private static InclusionDependency createInd(List<String> dependantColumnNames, List<String> referencedColumnNames) {
+    return new InclusionDependency(createColumnPermutation(dependantColumnNames), createColumnPermutation(referencedColumnNames));
+  }
+
+  private static ColumnPermutation createColumnPermutation(List<String> columnNames) {
+    ColumnIdentifier[] columnIdentifiers = new ColumnIdentifier[columnNames.size()];
+    for (int i = 0; i < columnNames.size(); i++) {
+      for (FixedInputGenerator relation : new FixedInputGenerator[] { FIRST_RELATION, SECOND_RELATION, THIRD_RELATION, FOURTH_RELATION }) {
+        if (relation.columnNames.contains(columnNames.get(i))) {
+          columnIdentifiers[i] = new ColumnIdentifier(relation.relationName, columnNames.get(i));
+        }
+      }
+    }
+    return new ColumnPermutation(columnIdentifiers);
+  }
+
+  private static class FixedInputGenerator implements RelationalInputGenerator {
+
+    private final String relationName;
+    private final List<String> columnNames;
+    private final String[][] rows;
+
+    public FixedInputGenerator(String relationName, List<String> columnNames, String[][] rows) {
+      this.relationName = relationName;
+      this.columnNames = columnNames;
+      this.rows = rows;
+    }
+
+    @Override
+    public RelationalInput generateNewCopy() {
+      return new FixedInput(this);
+    }
+
+    public void close() {
+    }
+  }
+
+  private static class FixedInput implements RelationalInput {
+
+    private final FixedInputGenerator generator;
+    private int rowIndex = 0;
+
+    public FixedInput(FixedInputGenerator generator) {
+      this.generator = generator;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.rowIndex < this.generator.rows.length;
+    }
+
+    @Override
+    public List<String> next() {
+      return Arrays.asList(this.generator.rows[this.rowIndex++]);
+    }
+
+    @Override
+    public int numberOfColumns() {
+      return this.generator.columnNames.size();
+    }
+
+    @Override
+    public String relationName() {
+      return this.generator.relationName;
+    }
+
+    @Override
+    public List<String> columnNames() {
+      return this.generator.columnNames;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private static class ResultCollector implements InclusionDependencyResultReceiver {
+
+    private final Set<InclusionDependency> results = new HashSet<>();
+
+    @Override
+    public void receiveResult(InclusionDependency result) {
+      this.results.add(result);
+    }
+
+    public Boolean acceptedResult(InclusionDependency result) {
+      return true;
+    }
+  }
+
+  private static class TempFileCollector implements FileGenerator, AutoCloseable {
+
+    private final List<File> files = new ArrayList<>();
+
+    @Override
+    public File getTemporaryFile() throws FileCreationException {
+      try {
+        File file = File.createTempFile("spidey_test", ".bin");
+        this.files.add(file);
+        return file;
+      } catch (IOException e) {
+        throw new FileCreationException("Could not create a temporary file", e);
+      }
+    }
+
+    @Override
+    public void close() {
+      for (File file : this.files) {
+        file.delete();
+      }
+    }
+  }
+
 }
@@ -0,0 +1,120 @@
+package de.metanome.algorithms.taney;
+
+import java.nio.IntBuffer;
+
+// Stripped partition stored as a flat array of row indices, in which cluster i spans the range
+// [clusterOffsets[i], clusterOffsets[i + 1]). Compared to the nested lists of PositionListIndex,
+// this only needs four bytes per row and no objects per cluster. The arrays are int buffers,
+// so that they can live on the heap as well as in memory-mapped files (see PliStorage).
+public class CompactPli {
+
+	// Scratch space of intersections, reused by all intersections of a thread
+	private static final ThreadLocal<IntersectionBuffers> BUFFERS = ThreadLocal.withInitial(IntersectionBuffers::new);
+
+	private final IntBuffer rowIndices;
+	private final IntBuffer clusterOffsets;
+
+	public CompactPli(IntBuffer rowIndices, IntBuffer clusterOffsets) {
+		this.rowIndices = rowIndices;
+		this.clusterOffsets = clusterOffsets;
+	}
+
+	public IntBuffer getRowIndices() {
+		return this.rowIndices;
+	}
+
+	public IntBuffer getClusterOffsets() {
+		return this.clusterOffsets;
+	}
+
+	public int getNumberOfClusters() {
+		return this.clusterOffsets.limit() - 1;
+	}
+
+	public long getRawKeyError() {
+		// Each cluster requires removing all but one of its rows to become unique
+		return this.rowIndices.limit() - this.getNumberOfClusters();
+	}
+
+	public long getMemoryUsage() {
+		// Rough size of the two arrays and this object on a 64 bit JVM
+		return 48 + 4L * this.rowIndices.limit() + 4L * this.clusterOffsets.limit();
+	}
+
+	public boolean isMemoryMapped() {
+		return this.rowIndices.isDirect();
+	}
+
+	public CompactPli intersect(IntBuffer probingTable, int numberOfProbedClusters, PliStorage storage) {
+		// Splits each cluster by the cluster indices of the probed partition. Apart from the result,
+		// this doesn't allocate anything, since the counters and output are thread-local buffers.
+		IntersectionBuffers buffers = BUFFERS.get();
+		buffers.ensureCapacity(numberOfProbedClusters, this.rowIndices.limit());
+		int[] counts = buffers.counts;
+		int[] positions = buffers.positions;
+		int[] resultRowIndices = buffers.rowIndices;
+		int[] resultClusterOffsets = buffers.clusterOffsets;
+
+		int numberOfResultClusters = 0;
+		int resultPosition = 0;
+		for (int clusterIndex = 0; clusterIndex < this.getNumberOfClusters(); clusterIndex++) {
+			int start = this.clusterOffsets.get(clusterIndex);
+			int end = this.clusterOffsets.get(clusterIndex + 1);
+			for (int i = start; i < end; i++) {
+				int probedClusterIndex = probingTable.get(this.rowIndices.get(i));
+				if (probedClusterIndex != PliCache.UNIQUE_ROW) {
+					counts[probedClusterIndex]++;
+				}
+			}
+
+			// Sub-clusters with a single row are stripped; the others get a range of the output once their first row shows up
+			for (int i = start; i < end; i++) {
+				int rowIndex = this.rowIndices.get(i);
+				int probedClusterIndex = probingTable.get(rowIndex);
+				if (probedClusterIndex == PliCache.UNIQUE_ROW || counts[probedClusterIndex] == 1) {
+					continue;
+				}
+				if (counts[probedClusterIndex] > 1) {
+					resultClusterOffsets[numberOfResultClusters++] = resultPosition;
+					positions[probedClusterIndex] = resultPosition;
+					resultPosition += counts[probedClusterIndex];
+					counts[probedClusterIndex] = -1;
+				}
+				resultRowIndices[positions[probedClusterIndex]++] = rowIndex;
+			}
+
+			for (int i = start; i < end; i++) {
+				int probedClusterIndex = probingTable.get(this.rowIndices.get(i));
+				if (probedClusterIndex != PliCache.UNIQUE_ROW) {
+					counts[probedClusterIndex] = 0;
+				}
+			}
+		}
+		resultClusterOffsets[numberOfResultClusters] = resultPosition;
+
+		return new CompactPli(
+				storage.store(resultRowIndices, resultPosition),
+				storage.store(resultClusterOffsets, numberOfResultClusters + 1));
+	}
+
+	private static class IntersectionBuffers {
+		int[] counts = new int[0];
+		int[] positions = new int[0];
+		int[] rowIndices = new int[0];
+		int[] clusterOffsets = new int[0];
+
+		void ensureCapacity(int numberOfProbedClusters, int numberOfRows) {
+			if (this.counts.length < numberOfProbedClusters) {
+				this.counts = new int[numberOfProbedClusters];
+				this.positions = new int[numberOfProbedClusters];
+			}
+			if (this.rowIndices.length < numberOfRows) {
+				this.rowIndices = new int[numberOfRows];
+			}
+			// Each resulting cluster has at least two rows
+			if (this.clusterOffsets.length < numberOfRows / 2 + 1) {
+				this.clusterOffsets = new int[numberOfRows / 2 + 1];
+			}
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package de.metanome.algorithms.taney;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.metanome.algorithm_helper.data_structures.ColumnCombinationBitset;
+
+// Prefix tree over the LHSs of the FDs of a single RHS A, so the RHS itself is implicit and never part
+// of a path. Each path from the root spells the column indices of a LHS in ascending order. If X -> A holds,
+// so does every Y -> A with Y containing X, so the tree only keeps minimal LHSs. Methods are synchronized,
+// since nodes of a lattice level may add FDs concurrently.
+public class FdTree {
+
+	private final int numberOfColumns;
+	private final Node root = new Node();
+
+	public FdTree(int numberOfColumns) {
+		this.numberOfColumns = numberOfColumns;
+	}
+
+	public synchronized boolean add(ColumnCombinationBitset lhs) {
+		// A LHS containing a stored one is implied by it, so it is not added
+		List<Integer> columnIndices = lhs.getSetBits();
+		if (this.containsGeneralization(this.root, columnIndices, 0)) {
+			return false;
+		}
+
+		Node node = this.root;
+		for (int columnIndex : columnIndices) {
+			if (node.children == null) {
+				node.children = new Node[this.numberOfColumns];
+			}
+			if (node.children[columnIndex] == null) {
+				node.children[columnIndex] = new Node();
+			}
+			node = node.children[columnIndex];
+		}
+		node.isLhs = true;
+		return true;
+	}
+
+	public synchronized void remove(ColumnCombinationBitset lhs) {
+		this.remove(this.root, lhs.getSetBits(), 0);
+	}
+
+	private boolean remove(Node node, List<Integer> columnIndices, int depth) {
+		// Returns whether the node became obsolete and can be dropped by its parent
+		if (depth == columnIndices.size()) {
+			node.isLhs = false;
+		} else if (node.children != null) {
+			int columnIndex = columnIndices.get(depth);
+			Node child = node.children[columnIndex];
+			if (child != null && this.remove(child, columnIndices, depth + 1)) {
+				node.children[columnIndex] = null;
+			}
+		}
+		return !node.isLhs && !this.hasChildren(node);
+	}
+
+	private boolean hasChildren(Node node) {
+		if (node.children != null) {
+			for (Node child : node.children) {
+				if (child != null) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	public synchronized boolean contains(ColumnCombinationBitset lhs) {
+		Node node = this.root;
+		for (int columnIndex : lhs.getSetBits()) {
+			if (node.children == null || node.children[columnIndex] == null) {
+				return false;
+			}
+			node = node.children[columnIndex];
+		}
+		return node.isLhs;
+	}
+
+	public synchronized boolean containsGeneralization(ColumnCombinationBitset lhs) {
+		// A generalization Y -> A of X -> A consists of columns of X only, so we never leave the columns of X.
+		// The lookup visits at most the subsets of X, no matter how many FDs the tree holds.
+		return this.containsGeneralization(this.root, lhs.getSetBits(), 0);
+	}
+
+	private boolean containsGeneralization(Node node, List<Integer> columnIndices, int from) {
+		if (node.isLhs) {
+			return true;
+		}
+		if (node.children == null) {
+			return false;
+		}
+		for (int i = from; i < columnIndices.size(); i++) {
+			Node child = node.children[columnIndices.get(i)];
+			if (child != null && this.containsGeneralization(child, columnIndices, i + 1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public synchronized List<ColumnCombinationBitset> getGeneralizations(ColumnCombinationBitset lhs) {
+		List<ColumnCombinationBitset> generalizations = new ArrayList<>();
+		this.collectGeneralizations(this.root, lhs.getSetBits(), 0, new ArrayList<>(), generalizations);
+		return generalizations;
+	}
+
+	private void collectGeneralizations(Node node, List<Integer> columnIndices, int from, List<Integer> path, List<ColumnCombinationBitset> generalizations) {
+		if (node.isLhs) {
+			generalizations.add(new ColumnCombinationBitset(path));
+		}
+		if (node.children == null) {
+			return;
+		}
+		for (int i = from; i < columnIndices.size(); i++) {
+			Node child = node.children[columnIndices.get(i)];
+			if (child != null) {
+				path.add(columnIndices.get(i));
+				this.collectGeneralizations(child, columnIndices, i + 1, path, generalizations);
+				path.remove(path.size() - 1);
+			}
+		}
+	}
+
+	public synchronized List<ColumnCombinationBitset> getLhss() {
+		return this.getLhss(-1);
+	}
+
+	public synchronized List<ColumnCombinationBitset> getLhss(int size) {
+		// Collects the LHSs (of the given size, or of any size if it is negative) in lexicographical order of their column indices
+		List<ColumnCombinationBitset> lhss = new ArrayList<>();
+		this.collectLhss(this.root, size, new ArrayList<>(), lhss);
+		return lhss;
+	}
+
+	private void collectLhss(Node node, int size, List<Integer> path, List<ColumnCombinationBitset> lhss) {
+		if (node.isLhs && (size < 0 || path.size() == size)) {
+			lhss.add(new ColumnCombinationBitset(path));
+		}
+		if (node.children == null || path.size() == size) {
+			return;
+		}
+		for (int columnIndex = 0; columnIndex < node.children.length; columnIndex++) {
+			if (node.children[columnIndex] != null) {
+				path.add(columnIndex);
+				this.collectLhss(node.children[columnIndex], size, path, lhss);
+				path.remove(path.size() - 1);
+			}
+		}
+	}
+
+	public synchronized int getMaxSize() {
+		return this.getMaxDepth(this.root);
+	}
+
+	private int getMaxDepth(Node node) {
+		int maxDepth = 0;
+		if (node.children != null) {
+			for (Node child : node.children) {
+				if (child != null) {
+					maxDepth = Math.max(maxDepth, this.getMaxDepth(child) + 1);
+				}
+			}
+		}
+		return maxDepth;
+	}
+
+	private static class Node {
+		Node[] children;
+		boolean isLhs;
+	}
+}
@@ -0,0 +1,205 @@
+package de.metanome.algorithms.taney;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import de.metanome.algorithm_helper.data_structures.ColumnCombinationBitset;
+import de.metanome.algorithm_integration.AlgorithmExecutionException;
+
+// HyFD-style discovery of exact FDs: the candidate LHSs of each RHS are kept in an FD tree (positive cover),
+// which is refined by the non-FDs of sampled record pairs, before the candidates are validated with PLIs
+public class HybridFdDiscovery {
+
+	// 1% as in HyFD, both for sampled row pairs yielding new non-FDs and for invalid candidates of a level
+	private static final double EFFICIENCY_THRESHOLD = 0.01;
+
+	private final PliCache plis;
+	private final int numberOfColumns;
+	private final Set<ColumnCombinationBitset> nonFds;
+	private final FdTree[] positiveCover;
+	private final FdTree[] results;
+
+	private int window = 1;
+
+	public HybridFdDiscovery(PliCache plis, int numberOfColumns) {
+		this.plis = plis;
+		this.numberOfColumns = numberOfColumns;
+		this.nonFds = new HashSet<>();
+		this.positiveCover = new FdTree[numberOfColumns];
+		this.results = new FdTree[numberOfColumns];
+
+		// We don't consider an empty LHS, so the most general candidates of A are all single columns except A itself
+		for (int rhsIndex = 0; rhsIndex < numberOfColumns; rhsIndex++) {
+			this.positiveCover[rhsIndex] = new FdTree(numberOfColumns);
+			this.results[rhsIndex] = new FdTree(numberOfColumns);
+			for (int columnIndex = 0; columnIndex < numberOfColumns; columnIndex++) {
+				if (columnIndex != rhsIndex) {
+					this.positiveCover[rhsIndex].add(new ColumnCombinationBitset(columnIndex));
+				}
+			}
+		}
+	}
+
+	public FdTree[] discover(ForkJoinPool pool) throws AlgorithmExecutionException {
+		this.sample();
+
+		for (int level = 1; level <= this.getMaxLhsSize(); level++) {
+			this.plis.startLevel(level);
+			List<Integer> rhsIndices = new ArrayList<>();
+			List<ColumnCombinationBitset> lhss = new ArrayList<>();
+			for (int rhsIndex = 0; rhsIndex < this.numberOfColumns; rhsIndex++) {
+				for (ColumnCombinationBitset lhs : this.positiveCover[rhsIndex].getLhss(level)) {
+					rhsIndices.add(rhsIndex);
+					lhss.add(lhs);
+				}
+			}
+			int[][] violations = pool == null ? null : this.findViolations(rhsIndices, lhss, pool);
+
+			int numberOfValidCandidates = 0;
+			int numberOfInvalidCandidates = 0;
+			for (int i = 0; i < lhss.size(); i++) {
+				// A violation of an earlier candidate of this level may have specialized this one already
+				int rhsIndex = rhsIndices.get(i);
+				ColumnCombinationBitset lhs = lhss.get(i);
+				if (!this.positiveCover[rhsIndex].contains(lhs)) {
+					continue;
+				}
+
+				int[] violation = violations == null ? this.findViolation(lhs, rhsIndex) : violations[i];
+				if (violation == null) {
+					// Candidates of the same RHS may be specializations of each other, the FD tree only keeps the minimal ones
+					numberOfValidCandidates++;
+					this.results[rhsIndex].add(lhs);
+				} else {
+					// The violating rows agree on the LHS but not on the RHS, so their agree set is a non-FD for this RHS
+					numberOfInvalidCandidates++;
+					ColumnCombinationBitset nonFd = this.getAgreeSet(violation[0], violation[1]);
+					this.nonFds.add(nonFd);
+					this.specialize(nonFd);
+				}
+			}
+
+			// Too many invalid candidates mean the sample missed non-FDs, so we compare rows at a larger distance
+			if (numberOfInvalidCandidates > EFFICIENCY_THRESHOLD * (numberOfValidCandidates + numberOfInvalidCandidates)) {
+				this.sample();
+			}
+		}
+		return this.results;
+	}
+
+	private int getMaxLhsSize() {
+		int maxSize = 0;
+		for (FdTree tree : this.positiveCover) {
+			maxSize = Math.max(maxSize, tree.getMaxSize());
+		}
+		return maxSize;
+	}
+
+	private int[][] findViolations(List<Integer> rhsIndices, List<ColumnCombinationBitset> lhss, ForkJoinPool pool) throws AlgorithmExecutionException {
+		// Only the validation runs in parallel, the FD trees are updated afterwards in a fixed order
+		int[][] violations = new int[lhss.size()][];
+		try {
+			pool.submit(() -> IntStream.range(0, lhss.size())
+					.parallel()
+					.forEach(i -> violations[i] = this.findViolation(lhss.get(i), rhsIndices.get(i))))
+				.get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new AlgorithmExecutionException("Parallel FD validation failed", e);
+		}
+		return violations;
+	}
+
+	private void sample() {
+		// HyFD's focused sampling: rows of the same cluster of a single column agree on at least that column,
+		// so their agree sets are promising non-FDs. Each round compares rows at the next larger distance within
+		// the clusters, until less than 1% of the comparisons reveal a new non-FD.
+		double efficiency;
+		do {
+			long numberOfComparisons = 0;
+			long numberOfNewNonFds = 0;
+			for (int columnIndex = 0; columnIndex < this.numberOfColumns; columnIndex++) {
+				CompactPli pli = this.plis.get(new ColumnCombinationBitset(columnIndex));
+				IntBuffer rowIndices = pli.getRowIndices();
+				IntBuffer clusterOffsets = pli.getClusterOffsets();
+				for (int clusterIndex = 0; clusterIndex < pli.getNumberOfClusters(); clusterIndex++) {
+					for (int i = clusterOffsets.get(clusterIndex); i + this.window < clusterOffsets.get(clusterIndex + 1); i++) {
+						numberOfComparisons++;
+						if (this.addNonFd(this.getAgreeSet(rowIndices.get(i), rowIndices.get(i + this.window)))) {
+							numberOfNewNonFds++;
+						}
+					}
+				}
+			}
+			this.window++;
+			efficiency = numberOfComparisons == 0 ? 0 : (double) numberOfNewNonFds / numberOfComparisons;
+		} while (efficiency >= EFFICIENCY_THRESHOLD);
+	}
+
+	private int[] findViolation(ColumnCombinationBitset lhs, int rhsIndex) {
+		// Returns two rows of the same LHS cluster that differ in the RHS, or null if the FD holds.
+		// A row that is unique in the RHS differs from every other row of its LHS cluster.
+		CompactPli lhsPli = this.plis.get(lhs);
+		IntBuffer rhsProbingTable = this.plis.getProbingTable(rhsIndex);
+		IntBuffer rowIndices = lhsPli.getRowIndices();
+		IntBuffer clusterOffsets = lhsPli.getClusterOffsets();
+		for (int clusterIndex = 0; clusterIndex < lhsPli.getNumberOfClusters(); clusterIndex++) {
+			int firstRowIndex = rowIndices.get(clusterOffsets.get(clusterIndex));
+			int rhsClusterIndex = rhsProbingTable.get(firstRowIndex);
+			for (int i = clusterOffsets.get(clusterIndex) + 1; i < clusterOffsets.get(clusterIndex + 1); i++) {
+				int rowIndex = rowIndices.get(i);
+				if (rhsClusterIndex == PliCache.UNIQUE_ROW || rhsProbingTable.get(rowIndex) != rhsClusterIndex) {
+					return new int[] { firstRowIndex, rowIndex };
+				}
+			}
+		}
+		return null;
+	}
+
+	private ColumnCombinationBitset getAgreeSet(int firstRowIndex, int secondRowIndex) {
+		// Probing tables serve as dictionary-encoded columns, in which unique rows agree with no other row
+		List<Integer> columnIndices = new ArrayList<>();
+		for (int columnIndex = 0; columnIndex < this.numberOfColumns; columnIndex++) {
+			IntBuffer probingTable = this.plis.getProbingTable(columnIndex);
+			int clusterIndex = probingTable.get(firstRowIndex);
+			if (clusterIndex != PliCache.UNIQUE_ROW && clusterIndex == probingTable.get(secondRowIndex)) {
+				columnIndices.add(columnIndex);
+			}
+		}
+		return new ColumnCombinationBitset(columnIndices);
+	}
+
+	private boolean addNonFd(ColumnCombinationBitset nonFd) {
+		if (!this.nonFds.add(nonFd)) {
+			return false;
+		}
+		this.specialize(nonFd);
+		return true;
+	}
+
+	private void specialize(ColumnCombinationBitset nonFd) {
+		// Two rows agreeing on exactly the columns X violate X -> A for every A outside X, and so every LHS within X.
+		// Such a LHS is replaced by its extensions with a column outside X; a column of X wouldn't fix the violation,
+		// and A itself would make the FD trivial. The tree doesn't add extensions that contain another candidate.
+		for (int rhsIndex = 0; rhsIndex < this.numberOfColumns; rhsIndex++) {
+			if (nonFd.containsColumn(rhsIndex)) {
+				continue;
+			}
+
+			FdTree tree = this.positiveCover[rhsIndex];
+			for (ColumnCombinationBitset invalidLhs : tree.getGeneralizations(nonFd)) {
+				tree.remove(invalidLhs);
+				for (int columnIndex = 0; columnIndex < this.numberOfColumns; columnIndex++) {
+					if (columnIndex != rhsIndex && !nonFd.containsColumn(columnIndex)) {
+						tree.add(invalidLhs.union(new ColumnCombinationBitset(columnIndex)));
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package de.metanome.algorithms.taney;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.metanome.algorithm_helper.data_structures.ColumnCombinationBitset;
+import de.metanome.algorithm_integration.AlgorithmExecutionException;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.algorithm_integration.input.RelationalInputGenerator;
+
+public class PliCache {
+
+	// Marks rows in a probing table that are not part of any stripped cluster
+	public static final int UNIQUE_ROW = -1;
+
+	private final List<CompactPli> singletonPlis;
+	private final int numberOfRows;
+	private final long memoryBudget;
+	private final long mappedMemoryBudget;
+	private final PliStorage storage;
+	private final List<IntBuffer> probingTables;
+
+	// Access-ordered, so that iteration starts with the least recently used PLI
+	private final LinkedHashMap<ColumnCombinationBitset, CachedPli> plis;
+	private long usedMemory = 0;
+	private long usedMappedMemory = 0;
+
+	private PliCache(List<CompactPli> singletonPlis, List<IntBuffer> probingTables, int numberOfRows, long memoryBudget, long mappedMemoryBudget,
+			PliStorage storage) {
+		this.singletonPlis = singletonPlis;
+		this.probingTables = probingTables;
+		this.numberOfRows = numberOfRows;
+		this.memoryBudget = memoryBudget;
+		this.mappedMemoryBudget = mappedMemoryBudget;
+		this.storage = storage;
+		this.plis = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	public static PliCache read(RelationalInputGenerator inputGenerator, long memoryBudget, long mappedMemoryBudget, FileGenerator tempFileGenerator)
+			throws AlgorithmExecutionException {
+		// Count the rows first, so that we know where the PLIs live before building any of them
+		int numberOfColumns;
+		int numberOfRows = 0;
+		RelationalInput input = inputGenerator.generateNewCopy();
+		try {
+			numberOfColumns = input.numberOfColumns();
+			while (input.hasNext()) {
+				input.next();
+				numberOfRows++;
+			}
+		} finally {
+			close(input);
+		}
+
+		// A single-column PLI has at most one row index per row and one cluster per two rows, its probing table one entry per row.
+		// If this alone exceeds our budget, all PLIs are stored in memory-mapped files instead of the heap.
+		long estimatedMemory = numberOfColumns * (48 + 4L * (2L * numberOfRows + numberOfRows / 2 + 1));
+		boolean isMapped = estimatedMemory > memoryBudget;
+		PliStorage storage = isMapped ? PliStorage.memoryMapped(tempFileGenerator) : PliStorage.onHeap();
+
+		// On the heap, all columns are encoded in a single pass. Otherwise, we read the input once per column,
+		// so that the heap only holds the value ids of one column at a time.
+		List<CompactPli> singletonPlis = new ArrayList<>(numberOfColumns);
+		List<IntBuffer> probingTables = new ArrayList<>(numberOfColumns);
+		int columnsPerPass = isMapped ? 1 : Math.max(numberOfColumns, 1);
+		for (int firstColumnIndex = 0; firstColumnIndex < numberOfColumns; firstColumnIndex += columnsPerPass) {
+			ColumnEncoder[] encoders = new ColumnEncoder[Math.min(columnsPerPass, numberOfColumns - firstColumnIndex)];
+			for (int i = 0; i < encoders.length; i++) {
+				encoders[i] = new ColumnEncoder(numberOfRows);
+			}
+			input = inputGenerator.generateNewCopy();
+			try {
+				while (input.hasNext()) {
+					List<String> row = input.next();
+					for (int i = 0; i < encoders.length; i++) {
+						encoders[i].add(row.get(firstColumnIndex + i));
+					}
+				}
+			} finally {
+				close(input);
+			}
+
+			for (ColumnEncoder encoder : encoders) {
+				singletonPlis.add(encoder.storePli(storage));
+				probingTables.add(encoder.storeProbingTable(storage));
+			}
+		}
+		return new PliCache(singletonPlis, probingTables, numberOfRows, memoryBudget, mappedMemoryBudget, storage);
+	}
+
+	private static void close(RelationalInput input) throws AlgorithmExecutionException {
+		try {
+			input.close();
+		} catch (Exception e) {
+			throw new AlgorithmExecutionException("Could not close relation " + input.relationName(), e);
+		}
+	}
+
+	public CompactPli get(ColumnCombinationBitset columnCombination) {
+		// The PLIs of single columns are never evicted, all others can be recomputed from them
+		List<Integer> columnIndices = columnCombination.getSetBits();
+		if (columnIndices.size() == 1) {
+			return this.singletonPlis.get(columnIndices.get(0));
+		}
+
+		// Lookups reorder the access-ordered map, so they need the lock as well
+		CachedPli cachedPli;
+		synchronized (this.plis) {
+			cachedPli = this.plis.get(columnCombination);
+		}
+		if (cachedPli != null) {
+			return cachedPli.pli;
+		}
+
+		// The intersection is computed without holding the lock, so concurrent misses may compute the same PLI twice
+		int lastColumnIndex = columnIndices.get(columnIndices.size() - 1);
+		CompactPli parentPli = this.get(columnCombination.minus(new ColumnCombinationBitset(lastColumnIndex)));
+		CompactPli pli = parentPli.intersect(this.getProbingTable(lastColumnIndex), this.getNumberOfClusters(lastColumnIndex), this.storage);
+		this.put(columnCombination, pli);
+		return pli;
+	}
+
+	public int getNumberOfRows() {
+		return this.numberOfRows;
+	}
+
+	public int getNumberOfClusters(int columnIndex) {
+		return this.singletonPlis.get(columnIndex).getNumberOfClusters();
+	}
+
+	public IntBuffer getProbingTable(int columnIndex) {
+		// Maps each row to the index of its cluster in the column's PLI, so that refinements can be checked by lookups
+		return this.probingTables.get(columnIndex);
+	}
+
+	public void put(ColumnCombinationBitset columnCombination, CompactPli pli) {
+		if (columnCombination.size() == 1) {
+			return;
+		}
+
+		CachedPli cachedPli = new CachedPli(pli);
+		synchronized (this.plis) {
+			this.putCachedPli(columnCombination, cachedPli);
+		}
+	}
+
+	private void putCachedPli(ColumnCombinationBitset columnCombination, CachedPli cachedPli) {
+		CachedPli replacedPli = this.plis.put(columnCombination, cachedPli);
+		if (replacedPli != null) {
+			this.release(replacedPli);
+		}
+		this.usedMemory += cachedPli.memory;
+		this.usedMappedMemory += cachedPli.mappedMemory;
+
+		// Evict the least recently used PLIs until we are within our budgets again
+		Iterator<Map.Entry<ColumnCombinationBitset, CachedPli>> iterator = this.plis.entrySet().iterator();
+		while ((this.usedMemory > this.memoryBudget || this.usedMappedMemory > this.mappedMemoryBudget) && iterator.hasNext()) {
+			Map.Entry<ColumnCombinationBitset, CachedPli> entry = iterator.next();
+			if (entry.getKey().equals(columnCombination)) {
+				continue;
+			}
+			this.release(entry.getValue());
+			iterator.remove();
+		}
+	}
+
+	public void startLevel(int level) {
+		// Nodes of level k only need the PLIs of level k and k-1, so we drop everything below
+		synchronized (this.plis) {
+			Iterator<Map.Entry<ColumnCombinationBitset, CachedPli>> iterator = this.plis.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<ColumnCombinationBitset, CachedPli> entry = iterator.next();
+				if (entry.getKey().size() <= level - 2) {
+					this.release(entry.getValue());
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	private void release(CachedPli cachedPli) {
+		this.usedMemory -= cachedPli.memory;
+		this.usedMappedMemory -= cachedPli.mappedMemory;
+	}
+
+	private static class ColumnEncoder {
+		// Value ids in the order of their first occurrence; NULL is a value of its own, since NULL = NULL for FDs
+		private final Map<String, Integer> valueIds = new HashMap<>();
+		private final int[] rowValueIds;
+		private int numberOfRows = 0;
+
+		ColumnEncoder(int numberOfRows) {
+			this.rowValueIds = new int[numberOfRows];
+		}
+
+		void add(String value) {
+			Integer valueId = this.valueIds.putIfAbsent(value, this.valueIds.size());
+			this.rowValueIds[this.numberOfRows++] = valueId == null ? this.valueIds.size() - 1 : valueId;
+		}
+
+		CompactPli storePli(PliStorage storage) {
+			// Counting sort of the rows by value id. Values of a single row are stripped, the others get a cluster each.
+			int[] clusterSizes = new int[this.valueIds.size()];
+			for (int i = 0; i < this.numberOfRows; i++) {
+				clusterSizes[this.rowValueIds[i]]++;
+			}
+			int[] clusterIndices = new int[this.valueIds.size()];
+			int[] clusterOffsets = new int[this.numberOfRows / 2 + 1];
+			int numberOfClusters = 0;
+			int position = 0;
+			for (int valueId = 0; valueId < clusterSizes.length; valueId++) {
+				if (clusterSizes[valueId] < 2) {
+					clusterIndices[valueId] = UNIQUE_ROW;
+					continue;
+				}
+				clusterIndices[valueId] = numberOfClusters;
+				clusterOffsets[numberOfClusters++] = position;
+				position += clusterSizes[valueId];
+			}
+			clusterOffsets[numberOfClusters] = position;
+
+			// Rows are added in ascending order, and from here on, each row refers to its cluster instead of its value
+			int[] rowIndices = new int[position];
+			int[] positions = clusterSizes;
+			System.arraycopy(clusterOffsets, 0, positions, 0, numberOfClusters);
+			for (int i = 0; i < this.numberOfRows; i++) {
+				int clusterIndex = clusterIndices[this.rowValueIds[i]];
+				this.rowValueIds[i] = clusterIndex;
+				if (clusterIndex != UNIQUE_ROW) {
+					rowIndices[positions[clusterIndex]++] = i;
+				}
+			}
+			return new CompactPli(storage.store(rowIndices, rowIndices.length), storage.store(clusterOffsets, numberOfClusters + 1));
+		}
+
+		IntBuffer storeProbingTable(PliStorage storage) {
+			// Only valid after storePli(), which replaced the value ids by cluster indices
+			return storage.store(this.rowValueIds, this.numberOfRows);
+		}
+	}
+
+	private static class CachedPli {
+		final CompactPli pli;
+		// Memory-mapped PLIs count against their own budget, since they don't occupy the heap. That budget is only an estimate:
+		// evicting a PLI doesn't unmap its segment while other PLIs of the segment are referenced (see PliStorage).
+		final long memory;
+		final long mappedMemory;
+
+		CachedPli(CompactPli pli) {
+			this.pli = pli;
+			this.memory = pli.isMemoryMapped() ? 0 : pli.getMemoryUsage();
+			this.mappedMemory = pli.isMemoryMapped() ? pli.getMemoryUsage() : 0;
+		}
+	}
+}
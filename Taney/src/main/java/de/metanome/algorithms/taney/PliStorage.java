@@ -0,0 +1,104 @@
+package de.metanome.algorithms.taney;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import de.metanome.algorithm_integration.algorithm_execution.FileCreationException;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
+
+// Decides where the arrays of PLIs and probing tables live: on the heap, or off-heap in
+// memory-mapped temporary files for relations whose PLIs don't fit into the heap.
+public class PliStorage {
+
+	// Number of ints per memory-mapped file (64 MB), larger arrays get a file of their own
+	private static final int SEGMENT_SIZE = 1 << 24;
+
+	private final boolean isMapped;
+	private final FileGenerator tempFileGenerator;
+
+	// Arrays are appended to the current segment, so that we don't need a file and a mapping per array
+	private IntBuffer segment = null;
+	private int segmentPosition = 0;
+
+	private PliStorage(boolean isMapped, FileGenerator tempFileGenerator) {
+		this.isMapped = isMapped;
+		this.tempFileGenerator = tempFileGenerator;
+	}
+
+	public static PliStorage onHeap() {
+		return new PliStorage(false, null);
+	}
+
+	public static PliStorage memoryMapped(FileGenerator tempFileGenerator) {
+		return new PliStorage(true, tempFileGenerator);
+	}
+
+	public IntBuffer store(int[] values, int length) {
+		// The values are always copied, since callers pass reused buffers
+		if (!this.isMapped) {
+			return IntBuffer.wrap(Arrays.copyOf(values, length));
+		}
+
+		IntBuffer buffer;
+		if (length > SEGMENT_SIZE) {
+			buffer = this.mapSegment(length);
+		} else {
+			synchronized (this) {
+				if (this.segment == null || this.segment.capacity() - this.segmentPosition < length) {
+					this.segment = this.mapSegment(SEGMENT_SIZE);
+					this.segmentPosition = 0;
+				}
+				buffer = this.segment.duplicate();
+				buffer.position(this.segmentPosition);
+				buffer.limit(this.segmentPosition + length);
+				buffer = buffer.slice();
+				this.segmentPosition += length;
+			}
+		}
+
+		// The ranges of concurrent calls don't overlap, so they are written without the lock
+		buffer.put(values, 0, length);
+		buffer.rewind();
+		return buffer;
+	}
+
+	private IntBuffer mapSegment(int size) {
+		// The mapping stays valid after closing the channel, and the OS pages it in and out as needed. It is released
+		// once no PLI of the segment is referenced anymore. The file is deleted right away where possible, otherwise
+		// (e.g. on Windows) when Metanome cleans up its temporary files or the JVM exits.
+		File file = null;
+		try {
+			file = this.createTempFile();
+			try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+					FileChannel channel = randomAccessFile.getChannel()) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, 4L * size);
+				return buffer.order(ByteOrder.nativeOrder()).asIntBuffer();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not map PLIs to " + file, e);
+		} finally {
+			if (file != null && !file.delete()) {
+				file.deleteOnExit();
+			}
+		}
+	}
+
+	private File createTempFile() throws IOException {
+		// Prefer Metanome's temp files, which are cleaned up with the execution; otherwise fall back to the system's temp directory
+		if (this.tempFileGenerator == null) {
+			return File.createTempFile("taney_pli", ".bin");
+		}
+		try {
+			return this.tempFileGenerator.getTemporaryFile();
+		} catch (FileCreationException e) {
+			throw new IOException("Could not create a temporary file for PLIs", e);
+		}
+	}
+}
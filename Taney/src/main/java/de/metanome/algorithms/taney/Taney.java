@@ -4,23 +4,28 @@ import java.util.ArrayList;
 
 import de.metanome.algorithm_integration.AlgorithmConfigurationException;
 import de.metanome.algorithm_integration.AlgorithmExecutionException;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
 import de.metanome.algorithm_integration.algorithm_types.BooleanParameterAlgorithm;
 import de.metanome.algorithm_integration.algorithm_types.FunctionalDependencyAlgorithm;
 import de.metanome.algorithm_integration.algorithm_types.IntegerParameterAlgorithm;
 import de.metanome.algorithm_integration.algorithm_types.RelationalInputParameterAlgorithm;
 import de.metanome.algorithm_integration.algorithm_types.StringParameterAlgorithm;
+import de.metanome.algorithm_integration.algorithm_types.TempFileAlgorithm;
 import de.metanome.algorithm_integration.configuration.ConfigurationRequirement;
+import de.metanome.algorithm_integration.configuration.ConfigurationRequirementInteger;
 import de.metanome.algorithm_integration.configuration.ConfigurationRequirementRelationalInput;
+import de.metanome.algorithm_integration.configuration.ConfigurationRequirementString;
 import de.metanome.algorithm_integration.input.RelationalInputGenerator;
 import de.metanome.algorithm_integration.result_receiver.FunctionalDependencyResultReceiver;
 
 public class Taney extends TaneyAlgorithm 				// Separating the algorithm implementation and the Metanome interface implementation is good practice
 						  implements FunctionalDependencyAlgorithm, 			// Defines the type of the algorithm, i.e., the result type, for instance, FunctionalDependencyAlgorithm or InclusionDependencyAlgorithm; implementing multiple types is possible
 						  			 RelationalInputParameterAlgorithm,	// Defines the input type of the algorithm; relational input is any relational input from files or databases; more specific input specifications are possible
-						  			 StringParameterAlgorithm, IntegerParameterAlgorithm, BooleanParameterAlgorithm {	// Types of configuration parameters this algorithm requires; all these are optional
+						  			 StringParameterAlgorithm, IntegerParameterAlgorithm, BooleanParameterAlgorithm,	// Types of configuration parameters this algorithm requires; all these are optional
+						  			 TempFileAlgorithm {				// Lets Metanome provide temporary files for memory-mapped PLIs
 
 	public enum Identifier {
-		INPUT_GENERATOR
+		INPUT_GENERATOR, PLI_CACHE_MEMORY, MAPPED_PLI_CACHE_MEMORY, NUMBER_OF_THREADS, ERROR_THRESHOLD, STRATEGY
 	};
 
 	@Override
@@ -38,17 +43,78 @@ public class Taney extends TaneyAlgorithm 				// Separating the algorithm implem
 		ArrayList<ConfigurationRequirement<?>> conf = new ArrayList<>();
 		conf.add(new ConfigurationRequirementRelationalInput(Taney.Identifier.INPUT_GENERATOR.name()));
 		
+		// Memory budget of the PLI cache in MB
+		ConfigurationRequirementInteger pliCacheMemory = new ConfigurationRequirementInteger(Taney.Identifier.PLI_CACHE_MEMORY.name());
+		pliCacheMemory.setDefaultValues(new Integer[] { this.pliCacheMemory });
+		pliCacheMemory.setRequired(true);
+		conf.add(pliCacheMemory);
+		
+		// Estimated budget of the PLI cache in MB for PLIs in memory-mapped files, which are used if the single-column PLIs exceed PLI_CACHE_MEMORY.
+		// Defaults to half of the free disk space of the temp directory.
+		ConfigurationRequirementInteger mappedPliCacheMemory = new ConfigurationRequirementInteger(Taney.Identifier.MAPPED_PLI_CACHE_MEMORY.name());
+		mappedPliCacheMemory.setDefaultValues(new Integer[] { this.mappedPliCacheMemory });
+		mappedPliCacheMemory.setRequired(true);
+		conf.add(mappedPliCacheMemory);
+		
+		// Number of threads validating the nodes of a lattice level, or the candidates of a level of the hybrid strategy
+		ConfigurationRequirementInteger numberOfThreads = new ConfigurationRequirementInteger(Taney.Identifier.NUMBER_OF_THREADS.name());
+		numberOfThreads.setDefaultValues(new Integer[] { this.numberOfThreads });
+		numberOfThreads.setRequired(true);
+		conf.add(numberOfThreads);
+		
+		// Maximum g3 error of approximate FDs as fraction of the number of rows, 0 for exact FDs
+		ConfigurationRequirementString errorThreshold = new ConfigurationRequirementString(Taney.Identifier.ERROR_THRESHOLD.name());
+		errorThreshold.setDefaultValues(new String[] { Double.toString(this.errorThreshold) });
+		errorThreshold.setRequired(true);
+		conf.add(errorThreshold);
+		
+		// Discovery strategy: LATTICE (TANE) or HYBRID (HyFD-style sampling and validation, exact FDs only)
+		ConfigurationRequirementString strategy = new ConfigurationRequirementString(Taney.Identifier.STRATEGY.name());
+		strategy.setDefaultValues(new String[] { this.strategy.name() });
+		strategy.setRequired(true);
+		conf.add(strategy);
+		
 		return conf;
 	}
 
 	@Override
 	public void setStringConfigurationValue(String identifier, String... values) throws AlgorithmConfigurationException {
-		this.handleUnknownConfiguration(identifier, values);
+		if (Taney.Identifier.ERROR_THRESHOLD.name().equals(identifier)) {
+			try {
+				this.errorThreshold = Double.parseDouble(values[0].trim());
+			} catch (NumberFormatException e) {
+				throw new AlgorithmConfigurationException("The error threshold must be a number: " + values[0]);
+			}
+			if (this.errorThreshold < 0 || this.errorThreshold > 1)
+				throw new AlgorithmConfigurationException("The error threshold must be between 0 and 1: " + values[0]);
+		} else if (Taney.Identifier.STRATEGY.name().equals(identifier)) {
+			try {
+				this.strategy = Strategy.valueOf(values[0].trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				throw new AlgorithmConfigurationException("Unknown strategy: " + values[0] + " (expected one of " + concat(Strategy.values(), ",") + ")");
+			}
+		} else {
+			this.handleUnknownConfiguration(identifier, values);
+		}
 	}
 
 	@Override
 	public void setIntegerConfigurationValue(String identifier, Integer... values) throws AlgorithmConfigurationException {
-		this.handleUnknownConfiguration(identifier, values);
+		if (Taney.Identifier.PLI_CACHE_MEMORY.name().equals(identifier)) {
+			if (values[0] < 0)
+				throw new AlgorithmConfigurationException("The PLI cache memory must not be negative: " + values[0]);
+			this.pliCacheMemory = values[0];
+		} else if (Taney.Identifier.MAPPED_PLI_CACHE_MEMORY.name().equals(identifier)) {
+			if (values[0] < 0)
+				throw new AlgorithmConfigurationException("The mapped PLI cache memory must not be negative: " + values[0]);
+			this.mappedPliCacheMemory = values[0];
+		} else if (Taney.Identifier.NUMBER_OF_THREADS.name().equals(identifier)) {
+			if (values[0] < 1)
+				throw new AlgorithmConfigurationException("The number of threads must be positive: " + values[0]);
+			this.numberOfThreads = values[0];
+		} else {
+			this.handleUnknownConfiguration(identifier, values);
+		}
 	}
 
 	@Override
@@ -63,6 +129,11 @@ public class Taney extends TaneyAlgorithm 				// Separating the algorithm implem
 		this.inputGenerator = values[0];
 	}
 
+	@Override
+	public void setTempFileGenerator(FileGenerator tempFileGenerator) {
+		this.tempFileGenerator = tempFileGenerator;
+	}
+
 	@Override
 	public void setResultReceiver(FunctionalDependencyResultReceiver resultReceiver) {
 		this.resultReceiver = resultReceiver;
@@ -1,21 +1,26 @@
 package de.metanome.algorithms.taney;
 
-import java.util.ArrayDeque;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 
 import de.metanome.algorithm_integration.AlgorithmConfigurationException;
 import de.metanome.algorithm_integration.AlgorithmExecutionException;
 import de.metanome.algorithm_integration.ColumnCombination;
 import de.metanome.algorithm_integration.ColumnIdentifier;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
 import de.metanome.algorithm_integration.input.InputGenerationException;
-import de.metanome.algorithm_integration.input.InputIterationException;
 import de.metanome.algorithm_integration.input.RelationalInput;
 import de.metanome.algorithm_integration.input.RelationalInputGenerator;
 import de.metanome.algorithm_integration.result_receiver.ColumnNameMismatchException;
@@ -23,23 +28,37 @@ import de.metanome.algorithm_integration.result_receiver.CouldNotReceiveResultEx
 import de.metanome.algorithm_integration.result_receiver.FunctionalDependencyResultReceiver;
 import de.metanome.algorithm_integration.results.FunctionalDependency;
 import de.metanome.algorithm_helper.data_structures.ColumnCombinationBitset;
-import de.metanome.algorithm_helper.data_structures.PLIBuilder;
-import de.metanome.algorithm_helper.data_structures.PositionListIndex;
 
 public class TaneyAlgorithm {
 	
+	public enum Strategy {
+		LATTICE, HYBRID
+	}
+	
 	protected RelationalInputGenerator inputGenerator = null;
 	protected FunctionalDependencyResultReceiver resultReceiver = null;
+	protected FileGenerator tempFileGenerator = null;
 	
 	protected String relationName;
 	protected List<String> columnNames;
-	protected Map<ColumnCombinationBitset, PositionListIndex> plis;
+	protected PliCache plis;
+	protected int numberOfThreads = 1;
+	protected int pliCacheMemory = (int) (Runtime.getRuntime().maxMemory() / 2 / 1024 / 1024);
+	// Memory-mapped PLIs are backed by temporary files instead of the heap, so their budget defaults to half of the free disk space
+	protected int mappedPliCacheMemory = (int) Math.min(Integer.MAX_VALUE, new File(System.getProperty("java.io.tmpdir")).getUsableSpace() / 2 / 1024 / 1024);
+	protected double errorThreshold = 0;
+	protected Strategy strategy = Strategy.LATTICE;
+	
+	// Maximum number of rows that may be removed for an FD to hold (g3 error), derived from the error threshold
+	private long maxError;
+	
+	// Cluster sizes of the g3 computation, they are reset to zero after each cluster
+	private final ThreadLocal<int[]> clusterSizeBuffers = ThreadLocal.withInitial(() -> new int[0]);
 	
 	public void execute() throws AlgorithmExecutionException {
 		
 		this.initialize();
-		RelationalInput input = this.inputGenerator.generateNewCopy();
-		List<FunctionalDependency> results = this.generateResults(input);
+		List<FunctionalDependency> results = this.generateResults();
 		System.out.println(results);
 		this.emit(results);		
 	}
@@ -49,101 +68,279 @@ public class TaneyAlgorithm {
 		RelationalInput input = this.inputGenerator.generateNewCopy();
 		this.relationName = input.relationName();
 		this.columnNames = input.columnNames();
-		this.plis = new HashMap<>();
 	}
 	
-	protected List<FunctionalDependency> generateResults(RelationalInput input) throws InputIterationException {
+	protected List<FunctionalDependency> generateResults() throws AlgorithmExecutionException {
 
-		Map<ColumnCombinationBitset, List<PseudoFunctionalDependency>> results = new HashMap<>();
+		// Build PLIs for single columns and use them as base of our PLI cache.
+		// The cache builds them column by column, straight into the heap or memory-mapped files.
+		FdTree[] results;
+		ForkJoinPool pool = this.numberOfThreads > 1 ? new ForkJoinPool(this.numberOfThreads) : null;
+		try {
+			this.plis = PliCache.read(this.inputGenerator, (long) this.pliCacheMemory * 1024 * 1024,
+					(long) this.mappedPliCacheMemory * 1024 * 1024, this.tempFileGenerator);
+			this.maxError = (long) Math.floor(this.errorThreshold * this.plis.getNumberOfRows());
+			if(this.strategy == Strategy.HYBRID) {
+				if(this.maxError > 0) {
+					throw new AlgorithmConfigurationException("The hybrid strategy only discovers exact FDs");
+				}
+				results = new HybridFdDiscovery(this.plis, this.columnNames.size()).discover(pool);
+			}
+			else {
+				results = this.traverseLattice(pool);
+			}
+		} catch (UncheckedIOException e) {
+			throw new AlgorithmExecutionException("Could not spill PLIs to disk", e);
+		} finally {
+			if(pool != null) {
+				pool.shutdown();
+			}
+		}
+		
+		// Convert LHSs and RHSs of the FD trees to functional dependencies.
+		// The trees are traversed in lexicographical order, so the result doesn't depend on the order the FDs were found in.
+		List<FunctionalDependency> functionalDependencies = new ArrayList<>();
+		for(int rhsIndex = 0; rhsIndex < results.length; rhsIndex++) {
+			ColumnCombinationBitset rhs = new ColumnCombinationBitset(rhsIndex);
+			for(ColumnCombinationBitset lhs : results[rhsIndex].getLhss()) {
+				functionalDependencies.add(new PseudoFunctionalDependency(lhs, rhs).materialize(this.relationName, this.columnNames));
+			}
+		}
+		return functionalDependencies;
+	}
+	
+	private FdTree[] traverseLattice(ForkJoinPool pool) throws AlgorithmExecutionException {
 		
-		// Build PLIs for single columns and add them to our PLI-map
-		PLIBuilder builder = new PLIBuilder(input);
-		List<PositionListIndex> singletonPlis = builder.getPLIList();
-		for(int i = 0; i < singletonPlis.size(); i++) {
-			this.plis.put(new ColumnCombinationBitset(i), singletonPlis.get(i));
+		// Index of the found FDs, one LHS prefix tree per RHS
+		FdTree[] results = new FdTree[this.columnNames.size()];
+		for(int i = 0; i < results.length; i++) {
+			results[i] = new FdTree(this.columnNames.size());
 		}
 		
-		// Initialize our working queue with the column combinations of size 2 (second layer of the lattice)
-		ArrayDeque<ColumnCombinationBitset> combinationQueue = new ArrayDeque<>();
+		// Initialize the first level of the lattice with the single columns.
+		// We don't consider FDs with an empty LHS, so every column is a RHS candidate of every single column (C+).
+		List<ColumnCombinationBitset> currentLevel = new ArrayList<>();
+		Map<ColumnCombinationBitset, BitSet> rhsCandidates = new HashMap<>();
 		for(int i = 0; i < this.columnNames.size(); i++) {
-			for(int j = i + 1; j < this.columnNames.size(); j++) {
-				combinationQueue.add(new ColumnCombinationBitset(i, j));
+			ColumnCombinationBitset columnCombination = new ColumnCombinationBitset(i);
+			BitSet allColumns = new BitSet(this.columnNames.size());
+			allColumns.set(0, this.columnNames.size());
+			currentLevel.add(columnCombination);
+			rhsCandidates.put(columnCombination, allColumns);
+		}
+		
+		// Traverse the lattice level by level
+		for(int level = 1; !currentLevel.isEmpty(); level++) {
+			// Nodes of this level only need the PLIs of this and the previous level
+			this.plis.startLevel(level);
+			
+			boolean[] isRemaining = this.processLevel(currentLevel, rhsCandidates, results, pool);
+			List<ColumnCombinationBitset> remainingLevel = new ArrayList<>();
+			for(int i = 0; i < currentLevel.size(); i++) {
+				if(isRemaining[i]) {
+					remainingLevel.add(currentLevel.get(i));
+				}
+			}
+			
+			Map<ColumnCombinationBitset, BitSet> nextRhsCandidates = new HashMap<>();
+			currentLevel = this.generateNextLevel(remainingLevel, rhsCandidates, nextRhsCandidates);
+			rhsCandidates = nextRhsCandidates;
+		}
+		return results;
+	}
+	
+	private boolean[] processLevel(List<ColumnCombinationBitset> currentLevel, Map<ColumnCombinationBitset, BitSet> rhsCandidates,
+			FdTree[] results, ForkJoinPool pool) throws AlgorithmExecutionException {
+		// All FDs of a level are computed before pruning, so that key pruning finds the generalizations of the whole level
+		boolean[] isRemaining = new boolean[currentLevel.size()];
+		this.forEachNode(currentLevel.size(), pool,
+				i -> this.computeDependencies(currentLevel.get(i), rhsCandidates.get(currentLevel.get(i)), results));
+		this.forEachNode(currentLevel.size(), pool,
+				i -> isRemaining[i] = this.prune(currentLevel.get(i), rhsCandidates.get(currentLevel.get(i)), results));
+		return isRemaining;
+	}
+	
+	private void forEachNode(int numberOfNodes, ForkJoinPool pool, IntConsumer action) throws AlgorithmExecutionException {
+		if(pool == null) {
+			for(int i = 0; i < numberOfNodes; i++) {
+				action.accept(i);
 			}
+			return;
 		}
 		
-		// Iterate over column combinations in the working queue
-		while(combinationQueue.size() > 0) {
-			ColumnCombinationBitset columnCombination = combinationQueue.pop();
+		// Nodes of the same level only modify their own C+ and read the PLIs of the previous level, so they are independent
+		try {
+			pool.submit(() -> IntStream.range(0, numberOfNodes)
+					.parallel()
+					.forEach(action))
+				.get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new AlgorithmExecutionException("Parallel FD validation failed", e);
+		}
+	}
+	
+	private void computeDependencies(ColumnCombinationBitset columnCombination, BitSet candidates,
+			FdTree[] results) {
+		// Only check X\A -> A if A is still a RHS candidate, i.e. no subset of X\A determines A
+		for(int rhsIndex : columnCombination.getSetBits()) {
+			if(!candidates.get(rhsIndex) || columnCombination.size() == 1) {
+				continue;
+			}
 			
-			// Generate possible FDs
-			generateFds:
-			for(int rhsIndex : columnCombination.getSetBits()) {
-				ColumnCombinationBitset rhs = new ColumnCombinationBitset(rhsIndex);
-				ColumnCombinationBitset lhs = columnCombination.minus(rhs);
+			ColumnCombinationBitset rhs = new ColumnCombinationBitset(rhsIndex);
+			ColumnCombinationBitset lhs = columnCombination.minus(rhs);
+			long error = this.computeError(lhs, rhs);
+			if(error <= this.maxError) {
+				results[rhsIndex].add(lhs);
+				candidates.clear(rhsIndex);
 				
-				// Pruning -- discard if LHS has subset in results for RHS
-				if(results.containsKey(rhs)) {
-					for(PseudoFunctionalDependency foundFd : results.get(rhs)) {
-						if(lhs.containsSubset(foundFd.lhs)) {
-							createCombinedPli(lhs, rhs);
-							continue generateFds;
+				// If X\A -> A holds exactly, any FD X -> B with B outside of X would not be minimal.
+				// This does not apply to approximate FDs, since X -> B might have a smaller error than X\A -> B.
+				if(error == 0) {
+					for(int columnIndex = 0; columnIndex < this.columnNames.size(); columnIndex++) {
+						if(!columnCombination.containsColumn(columnIndex)) {
+							candidates.clear(columnIndex);
 						}
 					}
-				} 
-				
-				// Check for functional dependency
-				if(this.isFd(lhs, rhs)) {
-					PseudoFunctionalDependency newFd = new PseudoFunctionalDependency(lhs, rhs);
-					if(results.containsKey(rhs)) {
-						results.get(rhs).add(newFd);
-					}
-					else {
-						// Only Array.asList() creates array of fixed size
-						results.put(rhs, new ArrayList<PseudoFunctionalDependency>(Arrays.asList(newFd)));
-					}
 				}
 			}
+		}
+	}
+	
+	private boolean prune(ColumnCombinationBitset columnCombination, BitSet candidates,
+			FdTree[] results) {
+		// Without RHS candidates, neither this node nor its supersets can yield minimal FDs
+		if(candidates.isEmpty()) {
+			return false;
+		}
+		
+		// Key pruning -- a (super)key determines all other columns, so its supersets can't yield minimal FDs.
+		// Before dropping it, we output its FDs that are minimal.
+		if(this.plis.get(columnCombination).getRawKeyError() == 0) {
+			for(int rhsIndex = candidates.nextSetBit(0); rhsIndex >= 0; rhsIndex = candidates.nextSetBit(rhsIndex + 1)) {
+				// X -> A is minimal if no generalization has been found, since these have a smaller LHS
+				if(!columnCombination.containsColumn(rhsIndex)) {
+					results[rhsIndex].add(columnCombination);
+				}
+			}
+			if(this.maxError == 0) {
+				return false;
+			}
 			
-			this.generatePostCombinations(columnCombination).stream().forEach(combinationQueue::add);
+			// An approximate FD Y\B -> B with B in X might still be minimal for a superset Y of the key X,
+			// so we only drop the candidates outside of X, which X already determines exactly.
+			for(int columnIndex = 0; columnIndex < this.columnNames.size(); columnIndex++) {
+				if(!columnCombination.containsColumn(columnIndex)) {
+					candidates.clear(columnIndex);
+				}
+			}
+			return !candidates.isEmpty();
 		}
 		
-		// Convert map of LHS and RHS of FDs to functional dependencies
-		return results.values().stream()
-				.flatMap(pseudoFds -> pseudoFds.stream())
-				.map(pseudoFd -> pseudoFd.materialize(this.relationName, this.columnNames))
-				.collect(Collectors.toList());
+		return true;
 	}
 	
-	private boolean isFd(ColumnCombinationBitset lhs, ColumnCombinationBitset rhs) {		
-		PositionListIndex lhsPli = this.plis.get(lhs);
-		PositionListIndex combinedPli = createCombinedPli(lhs, rhs);
-		
-		// Partitioning (it's magic!)
-		return lhsPli.getRawKeyError() == combinedPli.getRawKeyError();
+	private List<ColumnCombinationBitset> generateNextLevel(List<ColumnCombinationBitset> currentLevel, Map<ColumnCombinationBitset, BitSet> rhsCandidates,
+			Map<ColumnCombinationBitset, BitSet> nextRhsCandidates) {
+		// Join two nodes of the same level that only differ in their last column (apriori-gen).
+		// The nodes are in lexicographical order, so nodes sharing a prefix are adjacent.
+		Set<ColumnCombinationBitset> currentLevelSet = new HashSet<>(currentLevel);
+		List<ColumnCombinationBitset> nextLevel = new ArrayList<>();
+		for(int i = 0; i < currentLevel.size(); i++) {
+			List<Integer> firstColumns = currentLevel.get(i).getSetBits();
+			for(int j = i + 1; j < currentLevel.size(); j++) {
+				List<Integer> secondColumns = currentLevel.get(j).getSetBits();
+				if(!firstColumns.subList(0, firstColumns.size() - 1).equals(secondColumns.subList(0, secondColumns.size() - 1))) {
+					break;
+				}
+				
+				// All direct subsets must have survived pruning; C+ of the new node is the intersection of theirs
+				ColumnCombinationBitset columnCombination = currentLevel.get(i).union(currentLevel.get(j));
+				BitSet candidates = null;
+				for(ColumnCombinationBitset subset : columnCombination.getDirectSubsets()) {
+					BitSet subsetCandidates = rhsCandidates.get(subset);
+					if(!currentLevelSet.contains(subset)) {
+						candidates = null;
+						break;
+					}
+					if(candidates == null) {
+						candidates = (BitSet) subsetCandidates.clone();
+					} else {
+						candidates.and(subsetCandidates);
+					}
+				}
+				
+				if(candidates != null && !candidates.isEmpty()) {
+					nextLevel.add(columnCombination);
+					nextRhsCandidates.put(columnCombination, candidates);
+				}
+			}
+		}
+		return nextLevel;
 	}
 	
-	private PositionListIndex createCombinedPli(ColumnCombinationBitset lhs, ColumnCombinationBitset rhs) {
-		PositionListIndex lhsPli = this.plis.get(lhs);
-		PositionListIndex rhsPli = this.plis.get(rhs);
-		PositionListIndex combinedPli = rhsPli.intersect(lhsPli);
-		ColumnCombinationBitset combinedColumn = lhs.union(rhs);
-
-		// Store combined PLI, we will probably need it later
-		this.plis.put(combinedColumn, combinedPli);
-		return combinedPli;
+	private long computeError(ColumnCombinationBitset lhs, ColumnCombinationBitset rhs) {
+		// Returns the g3 error of X -> A, i.e. the minimum number of rows to remove for the FD to hold exactly.
+		// The computation stops once the error exceeds our maximum, since the exact value doesn't matter then.
+		CompactPli lhsPli = this.plis.get(lhs);
+		int rhsIndex = rhs.getSetBits().get(0);
+		IntBuffer rhsProbingTable = this.plis.getProbingTable(rhsIndex);
+		if(this.maxError == 0) {
+			return this.isFd(lhsPli, rhsProbingTable) ? 0 : 1;
+		}
+		
+		// Within each cluster of X, all rows except those of the most frequent cluster of A have to be removed.
+		// Rows that are unique in A form a cluster of their own.
+		IntBuffer rowIndices = lhsPli.getRowIndices();
+		IntBuffer clusterOffsets = lhsPli.getClusterOffsets();
+		int[] clusterSizes = this.clusterSizeBuffers.get();
+		if(clusterSizes.length < this.plis.getNumberOfClusters(rhsIndex)) {
+			clusterSizes = new int[this.plis.getNumberOfClusters(rhsIndex)];
+			this.clusterSizeBuffers.set(clusterSizes);
+		}
+		long error = 0;
+		for(int clusterIndex = 0; clusterIndex < lhsPli.getNumberOfClusters(); clusterIndex++) {
+			int start = clusterOffsets.get(clusterIndex);
+			int end = clusterOffsets.get(clusterIndex + 1);
+			int maxClusterSize = 1;
+			for(int i = start; i < end; i++) {
+				int rhsClusterIndex = rhsProbingTable.get(rowIndices.get(i));
+				if(rhsClusterIndex != PliCache.UNIQUE_ROW) {
+					maxClusterSize = Math.max(maxClusterSize, ++clusterSizes[rhsClusterIndex]);
+				}
+			}
+			for(int i = start; i < end; i++) {
+				int rhsClusterIndex = rhsProbingTable.get(rowIndices.get(i));
+				if(rhsClusterIndex != PliCache.UNIQUE_ROW) {
+					clusterSizes[rhsClusterIndex] = 0;
+				}
+			}
+			
+			error += end - start - maxClusterSize;
+			if(error > this.maxError) {
+				return error;
+			}
+		}
+		return error;
 	}
 	
-	private List<ColumnCombinationBitset> generatePostCombinations(ColumnCombinationBitset priorColumnCombination) {
-		// Generate the next nodes in lattice
-		int maxColumnIndex = Collections.max(priorColumnCombination.getSetBits());		
-		return IntStream.range(maxColumnIndex + 1, this.columnNames.size())
-			.boxed()
-			.map(columnIndex -> {
-				List<Integer> bits = priorColumnCombination.getSetBits();
-				bits.add(columnIndex);
-				return new ColumnCombinationBitset(bits);
-			})
-			.collect(Collectors.toList());
+	private boolean isFd(CompactPli lhsPli, IntBuffer rhsProbingTable) {
+		// X -> A holds iff e(X) = e(X u A), i.e. iff every cluster of X lies within a single cluster of A.
+		// We probe the clusters of X against the probing table of A instead of materializing the PLI of X u A.
+		IntBuffer rowIndices = lhsPli.getRowIndices();
+		IntBuffer clusterOffsets = lhsPli.getClusterOffsets();
+		for(int clusterIndex = 0; clusterIndex < lhsPli.getNumberOfClusters(); clusterIndex++) {
+			int rhsClusterIndex = rhsProbingTable.get(rowIndices.get(clusterOffsets.get(clusterIndex)));
+			if(rhsClusterIndex == PliCache.UNIQUE_ROW) {
+				return false;
+			}
+			for(int i = clusterOffsets.get(clusterIndex) + 1; i < clusterOffsets.get(clusterIndex + 1); i++) {
+				if(rhsProbingTable.get(rowIndices.get(i)) != rhsClusterIndex) {
+					return false;
+				}
+			}
+		}
+		return true;
 	}
 	
 	protected void emit(List<FunctionalDependency> results) throws CouldNotReceiveResultException, ColumnNameMismatchException {
@@ -156,7 +353,7 @@ public class TaneyAlgorithm {
 		return this.getClass().getName();
 	}
 
-	private class PseudoFunctionalDependency {
+	private static class PseudoFunctionalDependency {
 		ColumnCombinationBitset lhs;
 		ColumnCombinationBitset rhs;
 		
@@ -1,13 +1,53 @@
 package de.metanome.algorithms.taney;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import de.metanome.algorithm_integration.AlgorithmExecutionException;
+import de.metanome.algorithm_integration.ColumnCombination;
+import de.metanome.algorithm_integration.ColumnIdentifier;
+import de.metanome.algorithm_integration.algorithm_execution.FileCreationException;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.algorithm_integration.input.RelationalInputGenerator;
+import de.metanome.algorithm_integration.result_receiver.FunctionalDependencyResultReceiver;
+import de.metanome.algorithm_integration.results.FunctionalDependency;
+
 public class TaneyTest {
 
+  private static final String RELATION_NAME = "R";
+  private static final List<String> COLUMN_NAMES = Arrays.asList("A", "B", "C", "D");
+
+  // Minimal FDs: BD -> A, CD -> A, A -> B, CD -> B and AC -> D
+  private static final String[][] ROWS = {
+    { "1", "1", "x", "a" },
+    { "1", "1", "y", "a" },
+    { "2", "1", "x", "b" },
+    { "2", "1", "y", "b" },
+    { "3", "2", "x", "c" },
+    { "3", "2", "z", "a" }
+  };
+
+  private static final int NUMBER_OF_REPETITIONS = 20;
+
+  private Taney algorithm;
+
   @Before
   public void setUp() throws Exception {
+    this.algorithm = new Taney();
   }
 
   @After
@@ -19,7 +59,83 @@ public class TaneyTest {
   }
 
   @Test
-  public void testExecute() {
+  public void testExecute() throws AlgorithmExecutionException {
+    Set<FunctionalDependency> expectedResults = new HashSet<>(Arrays.asList(
+        createFd(Arrays.asList("B", "D"), "A"),
+        createFd(Arrays.asList("C", "D"), "A"),
+        createFd(Arrays.asList("A"), "B"),
+        createFd(Arrays.asList("C", "D"), "B"),
+        createFd(Arrays.asList("A", "C"), "D")));
+    assertEquals(expectedResults, this.execute(this.algorithm));
+  }
+
+  @Test
+  public void testExecuteWithoutPliCache() throws AlgorithmExecutionException {
+    // Without any budget, every combined PLI is evicted right away and recomputed from the single-column PLIs
+    Set<FunctionalDependency> expectedResults = this.execute(new Taney());
+    this.algorithm.setIntegerConfigurationValue(Taney.Identifier.PLI_CACHE_MEMORY.name(), 0);
+    this.algorithm.setIntegerConfigurationValue(Taney.Identifier.MAPPED_PLI_CACHE_MEMORY.name(), 0);
+    assertEquals(expectedResults, this.execute(this.algorithm));
+  }
+
+  @Test
+  public void testExecuteInParallel() throws AlgorithmExecutionException {
+    // With ten columns, each level has far more nodes than threads.
+    // The run is repeated, so that races on the shared PLI cache and FD trees get a chance to show up.
+    FixedInputGenerator inputGenerator = createRandomInput(10, 60);
+    Set<FunctionalDependency> expectedResults = this.execute(new Taney(), inputGenerator);
+    for (int i = 0; i < NUMBER_OF_REPETITIONS; i++) {
+      Taney parallelAlgorithm = new Taney();
+      parallelAlgorithm.setIntegerConfigurationValue(Taney.Identifier.NUMBER_OF_THREADS.name(), 4);
+      assertEquals(expectedResults, this.execute(parallelAlgorithm, inputGenerator));
+    }
+  }
+
+  @Test
+  public void testExecuteWithZeroErrorThreshold() throws AlgorithmExecutionException {
+    Set<FunctionalDependency> expectedResults = this.execute(new Taney());
+    this.algorithm.setStringConfigurationValue(Taney.Identifier.ERROR_THRESHOLD.name(), "0");
+    assertEquals(expectedResults, this.execute(this.algorithm));
+  }
+
+  @Test
+  public void testExecuteWithErrorThreshold() throws AlgorithmExecutionException {
+    // 20% of six rows allow to remove one row, e.g. the last one for A -> D
+    Set<FunctionalDependency> expectedResults = new HashSet<>(Arrays.asList(
+        createFd(Arrays.asList("D"), "A"),
+        createFd(Arrays.asList("A"), "B"),
+        createFd(Arrays.asList("C"), "B"),
+        createFd(Arrays.asList("D"), "B"),
+        createFd(Arrays.asList("A"), "D")));
+    this.algorithm.setStringConfigurationValue(Taney.Identifier.ERROR_THRESHOLD.name(), "0.2");
+    assertEquals(expectedResults, this.execute(this.algorithm));
+  }
+
+  @Test
+  public void testExecuteMemoryMapped() throws Exception {
+    // The single-column PLIs exceed a budget of 0 MB, so all PLIs are stored in memory-mapped files
+    Set<FunctionalDependency> expectedResults = this.execute(new Taney());
+    try (TempFileCollector tempFileGenerator = new TempFileCollector()) {
+      this.algorithm.setIntegerConfigurationValue(Taney.Identifier.PLI_CACHE_MEMORY.name(), 0);
+      this.algorithm.setTempFileGenerator(tempFileGenerator);
+      assertEquals(expectedResults, this.execute(this.algorithm));
+      assertFalse(tempFileGenerator.files.isEmpty());
+    }
+  }
+
+  @Test
+  public void testExecuteHybrid() throws AlgorithmExecutionException {
+    Set<FunctionalDependency> expectedResults = this.execute(new Taney());
+    this.algorithm.setStringConfigurationValue(Taney.Identifier.STRATEGY.name(), TaneyAlgorithm.Strategy.HYBRID.name());
+    assertEquals(expectedResults, this.execute(this.algorithm));
+  }
+
+  @Test
+  public void testExecuteHybridInParallel() throws AlgorithmExecutionException {
+    Set<FunctionalDependency> expectedResults = this.execute(new Taney());
+    this.algorithm.setStringConfigurationValue(Taney.Identifier.STRATEGY.name(), TaneyAlgorithm.Strategy.HYBRID.name());
+    this.algorithm.setIntegerConfigurationValue(Taney.Identifier.NUMBER_OF_THREADS.name(), 4);
+    assertEquals(expectedResults, this.execute(this.algorithm));
   }
 
   @Test
@@ -38,4 +154,135 @@ public class TaneyTest {
   public void testSetResultReceiverUniqueColumnCombinationResultReceiver() {
   }
 
+  private Set<FunctionalDependency> execute(Taney algorithm) throws AlgorithmExecutionException {
+    return this.execute(algorithm, new FixedInputGenerator(COLUMN_NAMES, ROWS));
+  }
+
+  private Set<FunctionalDependency> execute(Taney algorithm, FixedInputGenerator inputGenerator) throws AlgorithmExecutionException {
+    ResultCollector resultReceiver = new ResultCollector();
+    algorithm.setRelationalInputConfigurationValue(Taney.Identifier.INPUT_GENERATOR.name(), inputGenerator);
+    algorithm.setResultReceiver(resultReceiver);
+    algorithm.execute();
+    return resultReceiver.results;
+  }
+
+  private static FunctionalDependency createFd(List<String> lhsColumnNames, String rhsColumnName) {
+    ColumnIdentifier[] lhsColumnIdentifiers = new ColumnIdentifier[lhsColumnNames.size()];
+    for (int i = 0; i < lhsColumnNames.size(); i++) {
+      lhsColumnIdentifiers[i] = new ColumnIdentifier(RELATION_NAME, lhsColumnNames.get(i));
+    }
+    return new FunctionalDependency(new ColumnCombination(lhsColumnIdentifiers), new ColumnIdentifier(RELATION_NAME, rhsColumnName));
+  }
+
+  private static FixedInputGenerator createRandomInput(int numberOfColumns, int numberOfRows) {
+    // Four distinct values per column leave most FDs to larger LHSs
+    Random random = new Random(numberOfColumns * numberOfRows);
+    List<String> columnNames = new ArrayList<>();
+    for (int i = 0; i < numberOfColumns; i++) {
+      columnNames.add(String.valueOf((char) ('A' + i)));
+    }
+    String[][] rows = new String[numberOfRows][numberOfColumns];
+    for (String[] row : rows) {
+      for (int i = 0; i < numberOfColumns; i++) {
+        row[i] = String.valueOf(random.nextInt(4));
+      }
+    }
+    return new FixedInputGenerator(columnNames, rows);
+  }
+
+  private static class FixedInputGenerator implements RelationalInputGenerator {
+
+    private final List<String> columnNames;
+    private final String[][] rows;
+
+    public FixedInputGenerator(List<String> columnNames, String[][] rows) {
+      this.columnNames = columnNames;
+      this.rows = rows;
+    }
+
+    @Override
+    public RelationalInput generateNewCopy() {
+      return new FixedInput(this);
+    }
+
+    public void close() {
+    }
+  }
+
+  private static class FixedInput implements RelationalInput {
+
+    private final FixedInputGenerator generator;
+    private int rowIndex = 0;
+
+    public FixedInput(FixedInputGenerator generator) {
+      this.generator = generator;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.rowIndex < this.generator.rows.length;
+    }
+
+    @Override
+    public List<String> next() {
+      return Arrays.asList(this.generator.rows[this.rowIndex++]);
+    }
+
+    @Override
+    public int numberOfColumns() {
+      return this.generator.columnNames.size();
+    }
+
+    @Override
+    public String relationName() {
+      return RELATION_NAME;
+    }
+
+    @Override
+    public List<String> columnNames() {
+      return this.generator.columnNames;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private static class ResultCollector implements FunctionalDependencyResultReceiver {
+
+    private final Set<FunctionalDependency> results = new HashSet<>();
+
+    @Override
+    public void receiveResult(FunctionalDependency result) {
+      this.results.add(result);
+    }
+
+    public Boolean acceptedResult(FunctionalDependency result) {
+      return true;
+    }
+  }
+
+  private static class TempFileCollector implements FileGenerator, AutoCloseable {
+
+    private final List<File> files = new ArrayList<>();
+
+    @Override
+    public File getTemporaryFile() throws FileCreationException {
+      try {
+        File file = File.createTempFile("taney_test", ".bin");
+        this.files.add(file);
+        return file;
+      } catch (IOException e) {
+        throw new FileCreationException("Could not create a temporary file", e);
+      }
+    }
+
+    @Override
+    public void close() {
+      for (File file : this.files) {
+        file.delete();
+      }
+    }
+  }
+
 }